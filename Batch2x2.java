@@ -0,0 +1,264 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A batch of 2-by-2 matrices stored as a structure of arrays.
+ * Matrix k is [[a[k], b[k]], [c[k], d[k]]]. Trace, determinant, inverse and
+ * the power method are computed in closed form, entry by entry over the
+ * four arrays, so millions of matrices can be handled without creating a
+ * Matrix, a vector or any other object per matrix. With a pool set, every
+ * operation splits the batch into chunks that run in parallel.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class Batch2x2 implements java.io.Serializable {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Entries of every matrix, row by row. */
+	public final double[] a, b, c, d;
+
+	/** Number of matrices in the batch. */
+	private final int size;
+
+	/** Pool for parallel operations, null to run sequentially. */
+	private transient ForkJoinPool pool;
+
+	/** Matrices handled per task. */
+	private static final int CHUNK = 1 << 14;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** Batch of zero matrices.
+	 * @param size    Number of matrices
+	 */
+	public Batch2x2(int size) {
+		this.size = size;
+		a = new double[size];
+		b = new double[size];
+		c = new double[size];
+		d = new double[size];
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Number of matrices
+	 * @return     size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Run later operations on a pool
+	 * @param pool    Pool to split the batch over, or null to run sequentially
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/** Copy matrix k out of the batch
+	 * @param k    Index
+	 * @return     Matrix k as a 2-by-2 Matrix
+	 */
+	public Matrix get(int k) {
+		return new Matrix(new double[][] {{a[k], b[k]}, {c[k], d[k]}});
+	}
+
+	/** Fill every entry uniformly from [low, high). Each chunk draws from its
+	 * own split of rand, so the result depends only on rand's seed and not on
+	 * how the chunks are scheduled.
+	 * @param rand    Source of randomness, advanced by the call
+	 * @param low     Smallest value
+	 * @param high    Bound on the largest value
+	 */
+	public void fillRandom(SplittableRandom rand, final double low, final double high) {
+		int chunks = (size + CHUNK - 1) / CHUNK;
+		final SplittableRandom[] streams = new SplittableRandom[chunks];
+		for (int i = 0; i < chunks; i++) {
+			streams[i] = rand.split();
+		}
+		forEachChunk((k0, k1) -> {
+			SplittableRandom r = streams[k0 / CHUNK];
+			for (int k = k0; k < k1; k++) {
+				a[k] = r.nextDouble(low, high);
+				b[k] = r.nextDouble(low, high);
+				c[k] = r.nextDouble(low, high);
+				d[k] = r.nextDouble(low, high);
+			}
+		});
+	}
+
+	/** Traces a + d
+	 * @param out     Output with size entries
+	 */
+	public void trace(final double[] out) {
+		checkLength(out.length);
+		forEachChunk((k0, k1) -> {
+			for (int k = k0; k < k1; k++) {
+				out[k] = a[k] + d[k];
+			}
+		});
+	}
+
+	/** Determinants a d - b c
+	 * @param out     Output with size entries
+	 */
+	public void det(final double[] out) {
+		checkLength(out.length);
+		forEachChunk((k0, k1) -> {
+			for (int k = k0; k < k1; k++) {
+				out[k] = a[k] * d[k] - b[k] * c[k];
+			}
+		});
+	}
+
+	/** Inverses by the adjugate, as Matrix.inverse2by2 does; a singular
+	 * matrix gives infinite or NaN entries.
+	 * @param out     Batch of the same size to hold the inverses, may be this batch
+	 */
+	public void inverse(final Batch2x2 out) {
+		checkLength(out.size);
+		forEachChunk((k0, k1) -> {
+			for (int k = k0; k < k1; k++) {
+				double ak = a[k], bk = b[k], ck = c[k], dk = d[k];
+				double inv = 1 / (ak * dk - bk * ck);
+				out.a[k] = dk * inv;
+				out.b[k] = -bk * inv;
+				out.c[k] = -ck * inv;
+				out.d[k] = ak * inv;
+			}
+		});
+	}
+
+	/** Exact eigenvalue of largest magnitude, from the characteristic
+	 * polynomial l^2 - trace l + det = 0
+	 * @param out     Output with size entries, NaN where the eigenvalues are a complex pair
+	 */
+	public void dominantEigenvalue(final double[] out) {
+		checkLength(out.length);
+		forEachChunk((k0, k1) -> {
+			for (int k = k0; k < k1; k++) {
+				double half = 0.5 * (a[k] + d[k]);
+				double disc = half * half - (a[k] * d[k] - b[k] * c[k]);
+				if (disc < 0) {
+					out[k] = Double.NaN;
+				} else {
+					double root = Math.sqrt(disc);
+					out[k] = half >= 0 ? half + root : half - root;
+				}
+			}
+		});
+	}
+
+	/** The power method on every matrix, with the same iteration and
+	 * stopping rule as power_method, carried out on two scalars per matrix
+	 * @param x0          First entry of the starting vector
+	 * @param y0          Second entry of the starting vector
+	 * @param tolerance   Iteration stops when the eigenvalue estimate changes by no more than this
+	 * @param maxIter     Largest number of iterations performed
+	 * @param eigenvalue  Output with size entries, the last eigenvalue estimate
+	 * @param iterations  Output with size entries, the iterations performed
+	 * @exception  IllegalArgumentException Starting vector must not be zero.
+	 * @see power_method#power_method(Matrix, Matrix, double, int)
+	 */
+	public void powerMethod(double x0, double y0, final double tolerance, final int maxIter,
+			final double[] eigenvalue, final int[] iterations) {
+		checkLength(eigenvalue.length);
+		checkLength(iterations.length);
+		double norm0 = Math.hypot(x0, y0);
+		if (norm0 == 0) {
+			throw new IllegalArgumentException("Starting vector must not be zero.");
+		}
+		final double u0 = x0 / norm0, v0 = y0 / norm0;
+		final double residualTolerance = Math.sqrt(tolerance);
+		forEachChunk((k0, k1) -> {
+			for (int k = k0; k < k1; k++) {
+				double ak = a[k], bk = b[k], ck = c[k], dk = d[k];
+				double u = u0, v = v0;
+				double lambda = Double.NaN, previous = Double.NaN;
+				int count = 0;
+				while (count < maxIter) {
+					double p = ak * u + bk * v;
+					double q = ck * u + dk * v;
+					count++;
+					double rayleigh = u * p + v * q;
+					lambda = rayleigh;
+					double norm = Math.sqrt(p * p + q * q);
+					if (norm == 0) {
+						lambda = 0;
+						break;
+					}
+					double residual = Math.sqrt(Math.max(0, norm * norm - rayleigh * rayleigh)) / norm;
+					double s = (rayleigh < 0 ? -1 : 1) / norm;
+					u = p * s;
+					v = q * s;
+					if (Math.abs(lambda - previous) <= tolerance && residual <= residualTolerance) {
+						break;
+					}
+					previous = lambda;
+				}
+				eigenvalue[k] = lambda;
+				iterations[k] = count;
+			}
+		});
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	private void checkLength(int length) {
+		if (length != size) {
+			throw new IllegalArgumentException("Batch sizes must agree.");
+		}
+	}
+
+	/** Body of an operation over matrices [k0, k1). */
+	private interface RangeOperation {
+		void apply(int k0, int k1);
+	}
+
+	/** Run op over the whole batch, splitting on chunk boundaries if a pool is set. */
+	private void forEachChunk(RangeOperation op) {
+		ForkJoinPool p = pool;
+		if (p == null || size <= CHUNK) {
+			for (int k0 = 0; k0 < size; k0 += CHUNK) {
+				op.apply(k0, Math.min(k0 + CHUNK, size));
+			}
+		} else {
+			p.invoke(new ChunkTask(op, 0, (size + CHUNK - 1) / CHUNK, size));
+		}
+	}
+
+	/** Splits a range of chunks in half until a single chunk is left. */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1;
+		private final RangeOperation op;
+		private final int c0, c1, size;
+
+		ChunkTask(RangeOperation op, int c0, int c1, int size) {
+			this.op = op;
+			this.c0 = c0;
+			this.c1 = c1;
+			this.size = size;
+		}
+
+		protected void compute() {
+			if (c1 - c0 == 1) {
+				op.apply(c0 * CHUNK, Math.min(c1 * CHUNK, size));
+			} else {
+				int mid = (c0 + c1) >>> 1;
+				invokeAll(new ChunkTask(op, c0, mid, size), new ChunkTask(op, mid, c1, size));
+			}
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,125 @@
+/**
+ * Perform BiCGSTAB iterations on a general (non-symmetric) square operator.
+ * Needs two operator applications per iteration and a fixed handful of work
+ * vectors, allocated once before the loop.
+ */
+public class BiCGSTAB extends Iteration {
+
+    public final double[] bVector;
+    public double numOfIterations;
+
+    private final LinearOperator operator;
+    private Preconditioner preconditioner;
+
+    /**
+     * Set up BiCGSTAB for Ax = b
+     * @param a square Matrix, SparseMatrix or other operator
+     * @param b right hand side
+     */
+    public BiCGSTAB(LinearOperator a, double[] b) {
+        checkSquare(a);
+        checkVector(a, b);
+        this.operator = a;
+        this.bVector = b;
+        this.numOfIterations = 0;
+    }
+
+    /**
+     * Set a right preconditioner
+     * @param preconditioner approximation of A^-1, or null for none
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * Perform BiCGSTAB iterations, stopping once ||b - Ax|| / ||b|| drops below the tolerance
+     * @param x the initial vector, not modified
+     * @param tolerance relative residual to reach
+     * @param M the maximum number of iterations to perform
+     * @return the answer vector, or null if M iterations were not enough or the method broke down
+     */
+    public double[] bicgstab_iter(double[] x, double tolerance, int M) {
+        checkVector(operator, x);
+        int n = x.length;
+        double[] current = x.clone();
+        double[] r = new double[n];
+        double[] rHat = new double[n];
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] t = new double[n];
+        double[] pHat = preconditioner == null ? p : new double[n];
+        double[] sHat = preconditioner == null ? s : new double[n];
+
+        double bNorm = Matrix.norm(bVector);
+        if (bNorm == 0) {
+            bNorm = 1;
+        }
+        double rNorm = residual(operator, bVector, current, r);
+        System.arraycopy(r, 0, rHat, 0, n);
+        double rho = 1;
+        double alpha = 1;
+        double omega = 1;
+
+        int counter = 0;
+        while (rNorm / bNorm > tolerance && counter < M) {
+            double rhoNext = Matrix.dotProduct(rHat, r);
+            if (rhoNext == 0 || omega == 0) {
+                break; // breakdown
+            }
+            double beta = (rhoNext / rho) * (alpha / omega);
+            rho = rhoNext;
+            for (int i = 0; i < n; i++) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+            if (preconditioner != null) {
+                preconditioner.apply(p, pHat);
+            }
+            operator.apply(pHat, v);
+            alpha = rho / Matrix.dotProduct(rHat, v);
+            for (int i = 0; i < n; i++) {
+                s[i] = r[i] - alpha * v[i];
+            }
+            counter++;
+            numOfIterations++;
+            double sNorm = Matrix.norm(s);
+            if (sNorm / bNorm <= tolerance) {
+                for (int i = 0; i < n; i++) {
+                    current[i] += alpha * pHat[i];
+                }
+                rNorm = sNorm;
+                break;
+            }
+            if (preconditioner != null) {
+                preconditioner.apply(s, sHat);
+            }
+            operator.apply(sHat, t);
+            double tt = Matrix.dotProduct(t, t);
+            omega = tt == 0 ? 0 : Matrix.dotProduct(t, s) / tt;
+            for (int i = 0; i < n; i++) {
+                current[i] += alpha * pHat[i] + omega * sHat[i];
+                r[i] = s[i] - omega * t[i];
+            }
+            rNorm = Matrix.norm(r);
+        }
+
+        lastIterations = counter;
+        if (rNorm / bNorm > tolerance) {
+            if (verbose) {
+                System.out.println("BiCGSTAB Output for x(N): null");
+                System.out.println("Too many iterations without reaching a accurate answer.");
+            }
+            return null;
+        }
+        if (verbose) {
+            System.out.println("BiCGSTAB Output for x(N): " + formatVector(current));
+            System.out.println("Number of Iterations using BiCGSTAB Algorithm: " + counter);
+        }
+        return current;
+    }
+
+    public double numOfIterations() {
+        return numOfIterations;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Perform (preconditioned) Conjugate Gradient iterations on a symmetric
+ * positive definite matrix. Converges in O(sqrt(cond(A))) iterations, far
+ * fewer than Jacobi or Gauss-Seidel on the same system.
+ */
+public class ConjugateGradient extends Iteration {
+
+    public final double[] bVector;
+    public double numOfIterations;
+
+    private final LinearOperator operator;
+    private Preconditioner preconditioner;
+
+    /**
+     * Set up CG for Ax = b
+     * @param a symmetric positive definite Matrix, SparseMatrix or other operator
+     * @param b right hand side
+     */
+    public ConjugateGradient(LinearOperator a, double[] b) {
+        checkSquare(a);
+        checkVector(a, b);
+        this.operator = a;
+        this.bVector = b;
+        this.numOfIterations = 0;
+    }
+
+    /**
+     * Set the preconditioner, e.g. JacobiPreconditioner or IncompleteCholesky
+     * @param preconditioner approximation of A^-1, or null for plain CG
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * Perform CG iterations, stopping once ||b - Ax|| / ||b|| drops below the tolerance.
+     * All work vectors are allocated once before the loop.
+     * @param x the initial vector, not modified
+     * @param tolerance relative residual to reach
+     * @param M the maximum number of iterations to perform
+     * @return the answer vector, or null if M iterations were not enough
+     */
+    public double[] cg_iter(double[] x, double tolerance, int M) {
+        checkVector(operator, x);
+        int n = x.length;
+        double[] current = x.clone();
+        double[] r = new double[n];
+        double[] z = preconditioner == null ? r : new double[n];
+        double[] p = new double[n];
+        double[] q = new double[n];
+
+        double bNorm = Matrix.norm(bVector);
+        if (bNorm == 0) {
+            bNorm = 1;
+        }
+        double rNorm = residual(operator, bVector, current, r);
+        if (preconditioner != null) {
+            preconditioner.apply(r, z);
+        }
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = Matrix.dotProduct(r, z);
+
+        int counter = 0;
+        while (rNorm / bNorm > tolerance && counter < M) {
+            operator.apply(p, q);
+            double alpha = rz / Matrix.dotProduct(p, q);
+            for (int i = 0; i < n; i++) {
+                current[i] += alpha * p[i];
+                r[i] -= alpha * q[i];
+            }
+            rNorm = Matrix.norm(r);
+            if (preconditioner != null) {
+                preconditioner.apply(r, z);
+            }
+            double rzNext = Matrix.dotProduct(r, z);
+            double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < n; i++) {
+                p[i] = z[i] + beta * p[i];
+            }
+            counter++;
+            numOfIterations++;
+        }
+
+        lastIterations = counter;
+        if (rNorm / bNorm > tolerance) {
+            if (verbose) {
+                System.out.println("Conjugate Gradient Output for x(N): null");
+                System.out.println("Too many iterations without reaching a accurate answer.");
+            }
+            return null;
+        }
+        if (verbose) {
+            System.out.println("Conjugate Gradient Output for x(N): " + formatVector(current));
+            System.out.println("Number of Iterations using Conjugate Gradient Algorithm: " + counter);
+        }
+        return current;
+    }
+
+    public double numOfIterations() {
+        return numOfIterations;
+    }
+}
@@ -0,0 +1,884 @@
+/**
+ * Eigenvalues and eigenvectors of a real matrix.
+ * If A is symmetric, then A = V*D*V' where the eigenvalue matrix D is
+ * diagonal and the eigenvector matrix V is orthogonal, so the columns of V
+ * are the eigenvectors. A is first reduced to tridiagonal form by
+ * Householder reflections, applied in place and accumulated into V, then
+ * the tridiagonal matrix is diagonalized by the QL algorithm with implicit
+ * shifts.
+ * If A is not symmetric, the eigenvalues may come in complex conjugate
+ * pairs, D is block diagonal with the real eigenvalues in 1-by-1 blocks and
+ * each pair x +- iy in a 2-by-2 block [x y; -y x], and A*V = V*D, where the
+ * columns of V for a pair hold the real and imaginary parts of its
+ * eigenvector. V may be badly conditioned or even singular. A is reduced
+ * to upper Hessenberg form by Householder similarity transformations, then
+ * to real Schur form by the Francis double-shift QR algorithm, which keeps
+ * the arithmetic real; the eigenvectors are found by back substitution on
+ * the Schur form and transformed back with the accumulated similarities.
+ * Every stage is O(n^3) in time and works in O(n^2) memory, at most two
+ * n-by-n arrays and a few vectors, instead of forming a reflector matrix
+ * per column.
+ * Based on the eigenvalue decomposition from http://math.nist.gov/javanumerics/jama/,
+ * itself derived from the Algol procedures tred2, tql2, orthes and hqr2 by
+ * Bowdler, Martin, Reinsch and Wilkinson (Handbook for Auto. Comp.,
+ * Vol.ii-Linear Algebra) and the corresponding Fortran subroutines in EISPACK.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class EigenvalueDecomposition implements java.io.Serializable {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Row and column dimension (square matrix). */
+	private final int n;
+
+	/** Arrays for internal storage of eigenvalues, real and imaginary parts. */
+	private final double[] d, e;
+
+	/** Symmetry flag. */
+	private final boolean issymmetric;
+
+	/** Array for internal storage of eigenvectors. */
+	private final double[][] V;
+
+	/** Array for internal storage of nonsymmetric Hessenberg form, released once V is formed. */
+	private double[][] H;
+
+	/** Complex scalar division result, set by cdiv. */
+	private transient double cdivr, cdivi;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** Eigenvalue decomposition of a copy of a square matrix.
+	 * @param Arg    Square matrix
+	 * @exception    IllegalArgumentException Matrix must be square.
+	 * @exception    ArithmeticException The QR algorithm did not converge.
+	 */
+	public EigenvalueDecomposition(Matrix Arg) {
+		if (Arg.getRowDimension() != Arg.getColumnDimension()) {
+			throw new IllegalArgumentException("Matrix must be square.");
+		}
+		double[][] A = Arg.getArray();
+		n = Arg.getColumnDimension();
+		d = new double[n];
+		e = new double[n];
+
+		boolean symmetric = true;
+		for (int j = 0; (j < n) & symmetric; j++) {
+			for (int i = 0; (i < j) & symmetric; i++) {
+				symmetric = (A[i][j] == A[j][i]);
+			}
+		}
+		issymmetric = symmetric;
+
+		if (issymmetric) {
+			V = Arg.getArrayCopy();
+
+			// Tridiagonalize.
+			tred2();
+
+			// Diagonalize.
+			tql2();
+		} else {
+			V = new double[n][n];
+			H = Arg.getArrayCopy();
+
+			// Reduce to Hessenberg form.
+			orthes();
+
+			// Reduce Hessenberg to real Schur form.
+			hqr2();
+
+			// The Schur form is not needed once the eigenvectors are formed.
+			H = null;
+		}
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Was the matrix symmetric?
+	 * @return     true if V is orthogonal and D diagonal with the eigenvalues in ascending order
+	 */
+	public boolean isSymmetric() {
+		return issymmetric;
+	}
+
+	/** Return the eigenvector matrix
+	 * @return     V, with A*V = V*D; for a complex pair x +- iy in columns
+	 *             j and j+1, the eigenvector of x + iy is V(:,j) + i V(:,j+1)
+	 */
+	public Matrix getV() {
+		return new Matrix(V, n, n).copy();
+	}
+
+	/** Return the real parts of the eigenvalues
+	 * @return     real(diag(D)), in ascending order if the matrix was symmetric
+	 */
+	public double[] getRealEigenvalues() {
+		return d.clone();
+	}
+
+	/** Return the imaginary parts of the eigenvalues
+	 * @return     imag(diag(D)), all zero for a symmetric matrix; a
+	 *             conjugate pair appears as +y then -y
+	 */
+	public double[] getImagEigenvalues() {
+		return e.clone();
+	}
+
+	/** Return the block diagonal eigenvalue matrix
+	 * @return     D, with each complex pair x +- iy as the block [x y; -y x]
+	 */
+	public Matrix getD() {
+		Matrix X = new Matrix(n, n);
+		double[][] D = X.getArray();
+		for (int i = 0; i < n; i++) {
+			D[i][i] = d[i];
+			if (e[i] > 0) {
+				D[i][i+1] = e[i];
+			} else if (e[i] < 0) {
+				D[i][i-1] = e[i];
+			}
+		}
+		return X;
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	/** Symmetric Householder reduction to tridiagonal form.
+	 * On return d holds the diagonal, e(1:n-1) the subdiagonal and V the
+	 * accumulated orthogonal transformation.
+	 */
+	private void tred2() {
+		for (int j = 0; j < n; j++) {
+			d[j] = V[n-1][j];
+		}
+
+		// Householder reduction to tridiagonal form.
+		for (int i = n-1; i > 0; i--) {
+
+			// Scale to avoid under/overflow.
+			double scale = 0.0;
+			double h = 0.0;
+			for (int k = 0; k < i; k++) {
+				scale = scale + Math.abs(d[k]);
+			}
+			if (scale == 0.0) {
+				e[i] = d[i-1];
+				for (int j = 0; j < i; j++) {
+					d[j] = V[i-1][j];
+					V[i][j] = 0.0;
+					V[j][i] = 0.0;
+				}
+			} else {
+
+				// Generate Householder vector.
+				for (int k = 0; k < i; k++) {
+					d[k] /= scale;
+					h += d[k] * d[k];
+				}
+				double f = d[i-1];
+				double g = Math.sqrt(h);
+				if (f > 0) {
+					g = -g;
+				}
+				e[i] = scale * g;
+				h = h - f * g;
+				d[i-1] = f - g;
+				for (int j = 0; j < i; j++) {
+					e[j] = 0.0;
+				}
+
+				// Apply similarity transformation to remaining columns.
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					V[j][i] = f;
+					g = e[j] + V[j][j] * f;
+					for (int k = j+1; k <= i-1; k++) {
+						g += V[k][j] * d[k];
+						e[k] += V[k][j] * f;
+					}
+					e[j] = g;
+				}
+				f = 0.0;
+				for (int j = 0; j < i; j++) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for (int j = 0; j < i; j++) {
+					e[j] -= hh * d[j];
+				}
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					g = e[j];
+					for (int k = j; k <= i-1; k++) {
+						V[k][j] -= (f * e[k] + g * d[k]);
+					}
+					d[j] = V[i-1][j];
+					V[i][j] = 0.0;
+				}
+			}
+			d[i] = h;
+		}
+
+		// Accumulate transformations.
+		for (int i = 0; i < n-1; i++) {
+			V[n-1][i] = V[i][i];
+			V[i][i] = 1.0;
+			double h = d[i+1];
+			if (h != 0.0) {
+				for (int k = 0; k <= i; k++) {
+					d[k] = V[k][i+1] / h;
+				}
+				for (int j = 0; j <= i; j++) {
+					double g = 0.0;
+					for (int k = 0; k <= i; k++) {
+						g += V[k][i+1] * V[k][j];
+					}
+					for (int k = 0; k <= i; k++) {
+						V[k][j] -= g * d[k];
+					}
+				}
+			}
+			for (int k = 0; k <= i; k++) {
+				V[k][i+1] = 0.0;
+			}
+		}
+		for (int j = 0; j < n; j++) {
+			d[j] = V[n-1][j];
+			V[n-1][j] = 0.0;
+		}
+		if (n > 0) {
+			V[n-1][n-1] = 1.0;
+			e[0] = 0.0;
+		}
+	}
+
+	/** Symmetric tridiagonal QL algorithm with implicit shifts.
+	 * On return d holds the eigenvalues in ascending order and V the
+	 * matching eigenvectors.
+	 */
+	private void tql2() {
+		for (int i = 1; i < n; i++) {
+			e[i-1] = e[i];
+		}
+		if (n > 0) {
+			e[n-1] = 0.0;
+		}
+
+		double f = 0.0;
+		double tst1 = 0.0;
+		double eps = Math.pow(2.0, -52.0);
+		for (int l = 0; l < n; l++) {
+
+			// Find small subdiagonal element
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n) {
+				if (Math.abs(e[m]) <= eps * tst1) {
+					break;
+				}
+				m++;
+			}
+
+			// If m == l, d[l] is an eigenvalue,
+			// otherwise, iterate.
+			if (m > l) {
+				do {
+					// Compute implicit shift
+					double g = d[l];
+					double p = (d[l+1] - g) / (2.0 * e[l]);
+					double r = Math.hypot(p, 1.0);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l+1] = e[l] * (p + r);
+					double dl1 = d[l+1];
+					double h = g - d[l];
+					for (int i = l+2; i < n; i++) {
+						d[i] -= h;
+					}
+					f = f + h;
+
+					// Implicit QL transformation.
+					p = d[m];
+					double c = 1.0;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l+1];
+					double s = 0.0;
+					double s2 = 0.0;
+					for (int i = m-1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = Math.hypot(p, e[i]);
+						e[i+1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i+1] = h + s * (c * g + s * d[i]);
+
+						// Accumulate transformation.
+						for (int k = 0; k < n; k++) {
+							h = V[k][i+1];
+							V[k][i+1] = s * V[k][i] + c * h;
+							V[k][i] = c * V[k][i] - s * h;
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+
+					// Check for convergence.
+				} while (Math.abs(e[l]) > eps * tst1);
+			}
+			d[l] = d[l] + f;
+			e[l] = 0.0;
+		}
+
+		// Sort eigenvalues and corresponding vectors.
+		for (int i = 0; i < n-1; i++) {
+			int k = i;
+			double p = d[i];
+			for (int j = i+1; j < n; j++) {
+				if (d[j] < p) {
+					k = j;
+					p = d[j];
+				}
+			}
+			if (k != i) {
+				d[k] = d[i];
+				d[i] = p;
+				for (int j = 0; j < n; j++) {
+					p = V[j][i];
+					V[j][i] = V[j][k];
+					V[j][k] = p;
+				}
+			}
+		}
+	}
+
+	/** Nonsymmetric reduction to Hessenberg form by Householder similarity
+	 * transformations, H = (I - u u'/h) H (I - u u'/h) for each column,
+	 * accumulated into V.
+	 * The left product is applied row by row through a work vector so
+	 * every inner loop runs along a row.
+	 */
+	private void orthes() {
+		int low = 0;
+		int high = n-1;
+		double[] ort = new double[n];
+		double[] w = new double[n];
+
+		for (int m = low+1; m <= high-1; m++) {
+
+			// Scale column.
+			double scale = 0.0;
+			for (int i = m; i <= high; i++) {
+				scale = scale + Math.abs(H[i][m-1]);
+			}
+			if (scale != 0.0) {
+
+				// Compute Householder transformation.
+				double h = 0.0;
+				for (int i = high; i >= m; i--) {
+					ort[i] = H[i][m-1] / scale;
+					h += ort[i] * ort[i];
+				}
+				double g = Math.sqrt(h);
+				if (ort[m] > 0) {
+					g = -g;
+				}
+				h = h - ort[m] * g;
+				ort[m] = ort[m] - g;
+
+				// Apply from the left: w = u' H, H = H - u w / h
+				java.util.Arrays.fill(w, m, n, 0.0);
+				for (int i = m; i <= high; i++) {
+					double oi = ort[i];
+					double[] row = H[i];
+					for (int j = m; j < n; j++) {
+						w[j] += oi * row[j];
+					}
+				}
+				for (int i = m; i <= high; i++) {
+					double oi = ort[i] / h;
+					double[] row = H[i];
+					for (int j = m; j < n; j++) {
+						row[j] -= oi * w[j];
+					}
+				}
+
+				// Apply from the right.
+				for (int i = 0; i <= high; i++) {
+					double[] row = H[i];
+					double f = 0.0;
+					for (int j = high; j >= m; j--) {
+						f += ort[j] * row[j];
+					}
+					f = f / h;
+					for (int j = m; j <= high; j++) {
+						row[j] -= f * ort[j];
+					}
+				}
+				ort[m] = scale * ort[m];
+				H[m][m-1] = scale * g;
+			}
+		}
+
+		// Accumulate transformations (Algorithm orthes).
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				V[i][j] = (i == j ? 1.0 : 0.0);
+			}
+		}
+		for (int m = high-1; m >= low+1; m--) {
+			if (H[m][m-1] != 0.0) {
+				for (int i = m+1; i <= high; i++) {
+					ort[i] = H[i][m-1];
+				}
+				for (int j = m; j <= high; j++) {
+					double g = 0.0;
+					for (int i = m; i <= high; i++) {
+						g += ort[i] * V[i][j];
+					}
+					// Double division avoids possible underflow
+					g = (g / ort[m]) / H[m][m-1];
+					for (int i = m; i <= high; i++) {
+						V[i][j] += g * ort[i];
+					}
+				}
+			}
+		}
+	}
+
+	/** Nonsymmetric reduction from Hessenberg to real Schur form by the
+	 * Francis double-shift QR algorithm, then back substitution for the
+	 * eigenvectors.
+	 * Each step deflates one real root or a 2-by-2 block of two roots from
+	 * the bottom once its subdiagonal becomes negligible. Every step is
+	 * applied to all of H and accumulated into V, so that the eigenvectors
+	 * of the final quasi-triangular H can be carried back to those of A.
+	 */
+	private void hqr2() {
+
+		// Initialize
+		int nn = this.n;
+		int n = nn-1;
+		int low = 0;
+		double eps = Math.pow(2.0, -52.0);
+		double exshift = 0.0;
+		double p = 0, q = 0, r = 0, s = 0, z = 0, t, w, x, y;
+
+		// Compute matrix norm
+		double norm = 0.0;
+		for (int i = 0; i < nn; i++) {
+			for (int j = Math.max(i-1, 0); j < nn; j++) {
+				norm = norm + Math.abs(H[i][j]);
+			}
+		}
+
+		// Outer loop over eigenvalue index
+		int iter = 0;
+		int totalIter = 0;
+		while (n >= low) {
+
+			// Look for single small sub-diagonal element
+			int l = n;
+			while (l > low) {
+				s = Math.abs(H[l-1][l-1]) + Math.abs(H[l][l]);
+				if (s == 0.0) {
+					s = norm;
+				}
+				if (Math.abs(H[l][l-1]) < eps * s) {
+					break;
+				}
+				l--;
+			}
+
+			// Check for convergence
+			// One root found
+			if (l == n) {
+				H[n][n] = H[n][n] + exshift;
+				d[n] = H[n][n];
+				e[n] = 0.0;
+				n--;
+				iter = 0;
+
+			// Two roots found
+			} else if (l == n-1) {
+				w = H[n][n-1] * H[n-1][n];
+				p = (H[n-1][n-1] - H[n][n]) / 2.0;
+				q = p * p + w;
+				z = Math.sqrt(Math.abs(q));
+				H[n][n] = H[n][n] + exshift;
+				H[n-1][n-1] = H[n-1][n-1] + exshift;
+				x = H[n][n];
+
+				// Real pair
+				if (q >= 0) {
+					if (p >= 0) {
+						z = p + z;
+					} else {
+						z = p - z;
+					}
+					d[n-1] = x + z;
+					d[n] = d[n-1];
+					if (z != 0.0) {
+						d[n] = x - w / z;
+					}
+					e[n-1] = 0.0;
+					e[n] = 0.0;
+					x = H[n][n-1];
+					s = Math.abs(x) + Math.abs(z);
+					p = x / s;
+					q = z / s;
+					r = Math.sqrt(p * p + q * q);
+					p = p / r;
+					q = q / r;
+
+					// Row modification
+					for (int j = n-1; j < nn; j++) {
+						z = H[n-1][j];
+						H[n-1][j] = q * z + p * H[n][j];
+						H[n][j] = q * H[n][j] - p * z;
+					}
+
+					// Column modification
+					for (int i = 0; i <= n; i++) {
+						z = H[i][n-1];
+						H[i][n-1] = q * z + p * H[i][n];
+						H[i][n] = q * H[i][n] - p * z;
+					}
+
+					// Accumulate transformations
+					for (int i = 0; i < nn; i++) {
+						z = V[i][n-1];
+						V[i][n-1] = q * z + p * V[i][n];
+						V[i][n] = q * V[i][n] - p * z;
+					}
+
+				// Complex pair
+				} else {
+					d[n-1] = x + p;
+					d[n] = x + p;
+					e[n-1] = z;
+					e[n] = -z;
+				}
+				n = n - 2;
+				iter = 0;
+
+			// No convergence yet
+			} else {
+				if (totalIter > 30 * nn) {
+					throw new ArithmeticException("Eigenvalues did not converge.");
+				}
+
+				// Form shift
+				x = H[n][n];
+				y = H[n-1][n-1];
+				w = H[n][n-1] * H[n-1][n];
+
+				// Wilkinson's original ad hoc shift
+				if (iter == 10) {
+					exshift += x;
+					for (int i = low; i <= n; i++) {
+						H[i][i] -= x;
+					}
+					s = Math.abs(H[n][n-1]) + Math.abs(H[n-1][n-2]);
+					x = y = 0.75 * s;
+					w = -0.4375 * s * s;
+				}
+
+				// MATLAB's new ad hoc shift
+				if (iter == 30) {
+					s = (y - x) / 2.0;
+					s = s * s + w;
+					if (s > 0) {
+						s = Math.sqrt(s);
+						if (y < x) {
+							s = -s;
+						}
+						s = x - w / ((y - x) / 2.0 + s);
+						for (int i = low; i <= n; i++) {
+							H[i][i] -= s;
+						}
+						exshift += s;
+						x = y = w = 0.964;
+					}
+				}
+
+				iter = iter + 1;
+				totalIter = totalIter + 1;
+
+				// Look for two consecutive small sub-diagonal elements
+				int m = n-2;
+				while (m >= l) {
+					z = H[m][m];
+					r = x - z;
+					s = y - z;
+					p = (r * s - w) / H[m+1][m] + H[m][m+1];
+					q = H[m+1][m+1] - z - r - s;
+					r = H[m+2][m+1];
+					s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+					p = p / s;
+					q = q / s;
+					r = r / s;
+					if (m == l) {
+						break;
+					}
+					if (Math.abs(H[m][m-1]) * (Math.abs(q) + Math.abs(r)) <
+							eps * (Math.abs(p) * (Math.abs(H[m-1][m-1]) + Math.abs(z) +
+							Math.abs(H[m+1][m+1])))) {
+						break;
+					}
+					m--;
+				}
+
+				for (int i = m+2; i <= n; i++) {
+					H[i][i-2] = 0.0;
+					if (i > m+2) {
+						H[i][i-3] = 0.0;
+					}
+				}
+
+				// Double QR step involving rows l:n and columns m:n
+				for (int k = m; k <= n-1; k++) {
+					boolean notlast = (k != n-1);
+					if (k != m) {
+						p = H[k][k-1];
+						q = H[k+1][k-1];
+						r = (notlast ? H[k+2][k-1] : 0.0);
+						x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+						if (x == 0.0) {
+							continue;
+						}
+						p = p / x;
+						q = q / x;
+						r = r / x;
+					}
+
+					s = Math.sqrt(p * p + q * q + r * r);
+					if (p < 0) {
+						s = -s;
+					}
+					if (s != 0) {
+						if (k != m) {
+							H[k][k-1] = -s * x;
+						} else if (l != m) {
+							H[k][k-1] = -H[k][k-1];
+						}
+						p = p + s;
+						x = p / s;
+						y = q / s;
+						z = r / s;
+						q = q / p;
+						r = r / p;
+
+						// Row modification
+						for (int j = k; j < nn; j++) {
+							p = H[k][j] + q * H[k+1][j];
+							if (notlast) {
+								p = p + r * H[k+2][j];
+								H[k+2][j] = H[k+2][j] - p * z;
+							}
+							H[k][j] = H[k][j] - p * x;
+							H[k+1][j] = H[k+1][j] - p * y;
+						}
+
+						// Column modification
+						for (int i = 0; i <= Math.min(n, k+3); i++) {
+							p = x * H[i][k] + y * H[i][k+1];
+							if (notlast) {
+								p = p + z * H[i][k+2];
+								H[i][k+2] = H[i][k+2] - p * r;
+							}
+							H[i][k] = H[i][k] - p;
+							H[i][k+1] = H[i][k+1] - p * q;
+						}
+
+						// Accumulate transformations
+						for (int i = 0; i < nn; i++) {
+							p = x * V[i][k] + y * V[i][k+1];
+							if (notlast) {
+								p = p + z * V[i][k+2];
+								V[i][k+2] = V[i][k+2] - p * r;
+							}
+							V[i][k] = V[i][k] - p;
+							V[i][k+1] = V[i][k+1] - p * q;
+						}
+					}  // (s != 0)
+				}  // k loop
+			}  // check convergence
+		}  // while (n >= low)
+
+		// Backsubstitute to find vectors of upper triangular form
+		if (norm == 0.0) {
+			return;
+		}
+
+		for (n = nn-1; n >= 0; n--) {
+			p = d[n];
+			q = e[n];
+
+			// Real vector
+			if (q == 0) {
+				int l = n;
+				H[n][n] = 1.0;
+				for (int i = n-1; i >= 0; i--) {
+					w = H[i][i] - p;
+					r = 0.0;
+					for (int j = l; j <= n; j++) {
+						r = r + H[i][j] * H[j][n];
+					}
+					if (e[i] < 0.0) {
+						z = w;
+						s = r;
+					} else {
+						l = i;
+						if (e[i] == 0.0) {
+							if (w != 0.0) {
+								H[i][n] = -r / w;
+							} else {
+								H[i][n] = -r / (eps * norm);
+							}
+
+						// Solve real equations
+						} else {
+							x = H[i][i+1];
+							y = H[i+1][i];
+							q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+							t = (x * s - z * r) / q;
+							H[i][n] = t;
+							if (Math.abs(x) > Math.abs(z)) {
+								H[i+1][n] = (-r - w * t) / x;
+							} else {
+								H[i+1][n] = (-s - y * t) / z;
+							}
+						}
+
+						// Overflow control
+						t = Math.abs(H[i][n]);
+						if ((eps * t) * t > 1) {
+							for (int j = i; j <= n; j++) {
+								H[j][n] = H[j][n] / t;
+							}
+						}
+					}
+				}
+
+			// Complex vector
+			} else if (q < 0) {
+				int l = n-1;
+
+				// Last vector component imaginary so matrix is triangular
+				if (Math.abs(H[n][n-1]) > Math.abs(H[n-1][n])) {
+					H[n-1][n-1] = q / H[n][n-1];
+					H[n-1][n] = -(H[n][n] - p) / H[n][n-1];
+				} else {
+					cdiv(0.0, -H[n-1][n], H[n-1][n-1] - p, q);
+					H[n-1][n-1] = cdivr;
+					H[n-1][n] = cdivi;
+				}
+				H[n][n-1] = 0.0;
+				H[n][n] = 1.0;
+				for (int i = n-2; i >= 0; i--) {
+					double ra, sa, vr, vi;
+					ra = 0.0;
+					sa = 0.0;
+					for (int j = l; j <= n; j++) {
+						ra = ra + H[i][j] * H[j][n-1];
+						sa = sa + H[i][j] * H[j][n];
+					}
+					w = H[i][i] - p;
+
+					if (e[i] < 0.0) {
+						z = w;
+						r = ra;
+						s = sa;
+					} else {
+						l = i;
+						if (e[i] == 0) {
+							cdiv(-ra, -sa, w, q);
+							H[i][n-1] = cdivr;
+							H[i][n] = cdivi;
+						} else {
+
+							// Solve complex equations
+							x = H[i][i+1];
+							y = H[i+1][i];
+							vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+							vi = (d[i] - p) * 2.0 * q;
+							if (vr == 0.0 & vi == 0.0) {
+								vr = eps * norm * (Math.abs(w) + Math.abs(q) +
+										Math.abs(x) + Math.abs(y) + Math.abs(z));
+							}
+							cdiv(x*r - z*ra + q*sa, x*s - z*sa - q*ra, vr, vi);
+							H[i][n-1] = cdivr;
+							H[i][n] = cdivi;
+							if (Math.abs(x) > (Math.abs(z) + Math.abs(q))) {
+								H[i+1][n-1] = (-ra - w * H[i][n-1] + q * H[i][n]) / x;
+								H[i+1][n] = (-sa - w * H[i][n] - q * H[i][n-1]) / x;
+							} else {
+								cdiv(-r - y * H[i][n-1], -s - y * H[i][n], z, q);
+								H[i+1][n-1] = cdivr;
+								H[i+1][n] = cdivi;
+							}
+						}
+
+						// Overflow control
+						t = Math.max(Math.abs(H[i][n-1]), Math.abs(H[i][n]));
+						if ((eps * t) * t > 1) {
+							for (int j = i; j <= n; j++) {
+								H[j][n-1] = H[j][n-1] / t;
+								H[j][n] = H[j][n] / t;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		// Back transformation to get eigenvectors of original matrix
+		for (int j = nn-1; j >= 0; j--) {
+			for (int i = 0; i < nn; i++) {
+				z = 0.0;
+				for (int k = 0; k <= j; k++) {
+					z = z + V[i][k] * H[k][j];
+				}
+				V[i][j] = z;
+			}
+		}
+	}
+
+	/** Complex scalar division, (xr + i xi) / (yr + i yi) into cdivr and cdivi. */
+	private void cdiv(double xr, double xi, double yr, double yi) {
+		double r, d;
+		if (Math.abs(yr) > Math.abs(yi)) {
+			r = yi / yr;
+			d = yr + r * yi;
+			cdivr = (xr + r * xi) / d;
+			cdivi = (xi - r * xr) / d;
+		} else {
+			r = yr / yi;
+			d = yi + r * yr;
+			cdivr = (r * xr + xi) / d;
+			cdivi = (r * xi - xr) / d;
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,322 @@
+/**
+ * Dense matrix stored in a single contiguous double array.
+ * Element (i,j) lives at data[offset + i*rowStride + j*columnStride], so
+ * submatrices and transposes are views that share the array of the
+ * matrix they came from instead of copies. It is a LinearOperator, so the
+ * iterative solvers run on it directly, and MatrixFile.readFlat,
+ * MappedMatrix.toFlatMatrix and MatrixParser.readFlatMatrix load into it
+ * without going through a double[][].
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class FlatMatrix implements java.io.Serializable, LinearOperator {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Depth of a tile of B kept in cache by multiply. */
+	private static final int BLOCK_K = 64;
+
+	/** Width of a tile of B kept in cache by multiply. */
+	private static final int BLOCK_J = 256;
+
+	/** Backing array, possibly shared with other views. */
+	private final double[] data;
+
+	/** Index of element (0,0) in data. */
+	private final int offset;
+
+	/** Distance in data between (i,j) and (i+1,j), and between (i,j) and (i,j+1). */
+	private final int rowStride, columnStride;
+
+	/** Row and column dimensions. */
+	private final int m, n;
+
+	/* ------------------------
+	   Constructors
+	 * ------------------------ */
+
+	/** Construct an m-by-n matrix of zeros.
+	 * @param m    Number of rows.
+	 * @param n    Number of colums.
+	 */
+	public FlatMatrix(int m, int n) {
+		this(new double[m*n], 0, m, n, n, 1);
+	}
+
+	/** Construct a matrix over a row packed array without copying it.
+	 * @param data Elements packed by rows.
+	 * @param m    Number of rows.
+	 * @param n    Number of colums.
+	 * @exception  IllegalArgumentException Array length must be m*n.
+	 */
+	public FlatMatrix(double[] data, int m, int n) {
+		this(data, 0, m, n, n, 1);
+		if (data.length != m*n) {
+			throw new IllegalArgumentException("Array length must be m*n.");
+		}
+	}
+
+	/** Construct a strided view over an array without copying it.
+	 * @param data         Backing array.
+	 * @param offset       Index of element (0,0).
+	 * @param m            Number of rows.
+	 * @param n            Number of colums.
+	 * @param rowStride    Distance between consecutive rows.
+	 * @param columnStride Distance between consecutive columns.
+	 * @exception IllegalArgumentException The view does not fit in the array.
+	 */
+	public FlatMatrix(double[] data, int offset, int m, int n, int rowStride, int columnStride) {
+		if (m < 0 || n < 0) {
+			throw new IllegalArgumentException("Dimensions must not be negative.");
+		}
+		if (m > 0 && n > 0) {
+			long last = offset + (long) (m-1)*rowStride + (long) (n-1)*columnStride;
+			long first = offset + Math.min(0L, (long) (m-1)*rowStride) + Math.min(0L, (long) (n-1)*columnStride);
+			if (first < 0 || last >= data.length) {
+				throw new IllegalArgumentException("View does not fit in the backing array.");
+			}
+		}
+		this.data = data;
+		this.offset = offset;
+		this.m = m;
+		this.n = n;
+		this.rowStride = rowStride;
+		this.columnStride = columnStride;
+	}
+
+	/** Construct a contiguous copy of a Matrix.
+	 * @param X    Matrix to copy.
+	 */
+	public FlatMatrix(Matrix X) {
+		this(X.getRowPackedCopy(), X.getRowDimension(), X.getColumnDimension());
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Copy into a two-dimensional Matrix.
+	 * @return     Matrix with the same elements.
+	 */
+	public Matrix toMatrix() {
+		Matrix X = new Matrix(m, n);
+		double[][] C = X.getArray();
+		for (int i = 0; i < m; i++) {
+			int idx = offset + i*rowStride;
+			double[] ci = C[i];
+			for (int j = 0; j < n; j++, idx += columnStride) {
+				ci[j] = data[idx];
+			}
+		}
+		return X;
+	}
+
+	/** Make a contiguous row-major deep copy of this matrix or view.
+	 * @return     Copy that shares nothing with this matrix.
+	 */
+	public FlatMatrix copy() {
+		return new FlatMatrix(getRowPackedCopy(), m, n);
+	}
+
+	/** Access the backing array. Elements outside this view may be present.
+	 * @return     Pointer to the backing array.
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+	/** Index of element (0,0) in the backing array.
+	 * @return     Offset of the view.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/** Distance in the backing array between consecutive rows.
+	 * @return     Row stride.
+	 */
+	public int getRowStride() {
+		return rowStride;
+	}
+
+	/** Distance in the backing array between consecutive columns.
+	 * @return     Column stride.
+	 */
+	public int getColumnStride() {
+		return columnStride;
+	}
+
+	/** Check whether the elements occupy data[offset .. offset+m*n-1] by rows.
+	 * @return     true if the backing array can be used directly as a row packed array.
+	 */
+	public boolean isRowPacked() {
+		return (columnStride == 1 || n <= 1) && (rowStride == n || m <= 1);
+	}
+
+	/** Get row dimension.
+	 * @return     m, the number of rows.
+	 */
+	public int getRowDimension() {
+		return m;
+	}
+
+	/** Get column dimension.
+	 * @return     n, the number of columns.
+	 */
+	public int getColumnDimension() {
+		return n;
+	}
+
+	/** Get a single element.
+	 * @param i    Row index.
+	 * @param j    Column index.
+	 * @return     A(i,j)
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public double get(int i, int j) {
+		checkIndex(i, j);
+		return data[offset + i*rowStride + j*columnStride];
+	}
+
+	/** Set a single element. Views share elements with their parent.
+	 * @param i    Row index.
+	 * @param j    Column index.
+	 * @param s    A(i,j).
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public void set(int i, int j, double s) {
+		checkIndex(i, j);
+		data[offset + i*rowStride + j*columnStride] = s;
+	}
+
+	/** Get a submatrix as a view that shares elements with this matrix.
+	 * @param i0   Initial row index
+	 * @param i1   Final row index
+	 * @param j0   Initial column index
+	 * @param j1   Final column index
+	 * @return     A(i0:i1,j0:j1)
+	 * @exception  ArrayIndexOutOfBoundsException Submatrix indices
+	 */
+	public FlatMatrix getMatrix(int i0, int i1, int j0, int j1) {
+		if (i0 < 0 || j0 < 0 || i1 >= m || j1 >= n || i1 < i0 - 1 || j1 < j0 - 1) {
+			throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+		}
+		return new FlatMatrix(data, offset + i0*rowStride + j0*columnStride,
+				i1-i0+1, j1-j0+1, rowStride, columnStride);
+	}
+
+	/** Matrix transpose as a view that shares elements with this matrix.
+	 * @return    A'
+	 */
+	public FlatMatrix transpose() {
+		return new FlatMatrix(data, offset, n, m, columnStride, rowStride);
+	}
+
+	/** Make a one-dimensional row packed copy of the elements.
+	 * @return     Matrix elements packed in a one-dimensional array by rows.
+	 */
+	public double[] getRowPackedCopy() {
+		double[] vals = new double[m*n];
+		if (isRowPacked()) {
+			System.arraycopy(data, offset, vals, 0, m*n);
+			return vals;
+		}
+		for (int i = 0; i < m; i++) {
+			int idx = offset + i*rowStride;
+			for (int j = 0; j < n; j++, idx += columnStride) {
+				vals[i*n+j] = data[idx];
+			}
+		}
+		return vals;
+	}
+
+	/** Make a one-dimensional column packed copy of the elements.
+	 * @return     Matrix elements packed in a one-dimensional array by columns.
+	 */
+	public double[] getColumnPackedCopy() {
+		return transpose().getRowPackedCopy();
+	}
+
+	/**
+	 * Multiply two matrices, C = A * B. Either operand may be a view; the
+	 * result is a new contiguous row-major matrix.
+	 * @param B Second matrix
+	 * @return Resultant matrix  A * B
+	 */
+	public FlatMatrix multiply(FlatMatrix B) {
+		if (this.n != B.m) {
+			throw new IllegalArgumentException("First matrix n must equal second matrix m.");
+		}
+		FlatMatrix X = new FlatMatrix(this.m, B.n);
+		double[] a = this.data;
+		double[] b = B.data;
+		double[] c = X.data;
+		int nDim = B.n;
+		for (int kk = 0; kk < this.n; kk += BLOCK_K) {
+			int kEnd = Math.min(kk + BLOCK_K, this.n);
+			for (int jj = 0; jj < nDim; jj += BLOCK_J) {
+				int jEnd = Math.min(jj + BLOCK_J, nDim);
+				for (int i = 0; i < this.m; i++) {
+					int aRow = this.offset + i*this.rowStride;
+					int cRow = i*nDim;
+					for (int k = kk; k < kEnd; k++) {
+						double s = a[aRow + k*this.columnStride];
+						int bIdx = B.offset + k*B.rowStride + jj*B.columnStride;
+						for (int j = jj; j < jEnd; j++, bIdx += B.columnStride) {
+							c[cRow + j] += s * b[bIdx];
+						}
+					}
+				}
+			}
+		}
+		return X;
+	}
+
+	/** Multiply with a vector, y = A*x, reading each row along its stride.
+	 * @param x    Vector with n entries
+	 * @param y    Output with m entries, must not be x
+	 */
+	public void apply(double[] x, double[] y) {
+		if (x.length != n || y.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		for (int i = 0; i < m; i++) {
+			int idx = offset + i*rowStride;
+			double sum = 0;
+			for (int j = 0; j < n; j++, idx += columnStride) {
+				sum += data[idx] * x[j];
+			}
+			y[i] = sum;
+		}
+	}
+
+	/**
+	 * Gets String representation of matrix.
+	 * Columns separated by spaces, rows by new lines.
+	 * @return String representation of matrix.
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				str.append(get(i, j)).append(' ');
+			}
+			str.append('\n');
+		}
+		return str.toString();
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	private void checkIndex(int i, int j) {
+		if (i < 0 || i >= m || j < 0 || j >= n) {
+			throw new ArrayIndexOutOfBoundsException("Index (" + i + "," + j + ") is not valid");
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,181 @@
+/**
+ * Perform restarted GMRES(m) iterations on a general (non-symmetric) square
+ * operator. The Krylov basis, Hessenberg matrix and Givens rotations for one
+ * cycle are allocated once in the constructor and reused by every cycle.
+ */
+public class GMRES extends Iteration {
+
+    public final double[] bVector;
+    public double numOfIterations;
+
+    private final LinearOperator operator;
+    private final int restart;
+    private Preconditioner preconditioner;
+
+    private final double[][] v;  // Krylov basis, restart + 1 vectors
+    private final double[][] h;  // Hessenberg matrix, reduced to triangular by rotations
+    private final double[] cs, sn, g, y;
+    private final double[] w, z;
+
+    /**
+     * Set up GMRES for Ax = b
+     * @param a square Matrix, SparseMatrix or other operator
+     * @param b right hand side
+     * @param restart number of Krylov vectors kept before restarting
+     */
+    public GMRES(LinearOperator a, double[] b, int restart) {
+        checkSquare(a);
+        checkVector(a, b);
+        if (restart < 1) {
+            throw new IllegalArgumentException("Restart length must be positive");
+        }
+        int n = b.length;
+        this.operator = a;
+        this.bVector = b;
+        this.restart = restart;
+        this.numOfIterations = 0;
+        this.v = new double[restart + 1][n];
+        this.h = new double[restart + 1][restart];
+        this.cs = new double[restart];
+        this.sn = new double[restart];
+        this.g = new double[restart + 1];
+        this.y = new double[restart];
+        this.w = new double[n];
+        this.z = new double[n];
+    }
+
+    /**
+     * Set a right preconditioner, so GMRES works on A M^-1
+     * @param preconditioner approximation of A^-1, or null for none
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * Perform GMRES iterations, stopping once ||b - Ax|| / ||b|| drops below the tolerance
+     * @param x the initial vector, not modified
+     * @param tolerance relative residual to reach
+     * @param M the maximum number of inner iterations over all cycles
+     * @return the answer vector, or null if M iterations were not enough
+     */
+    public double[] gmres_iter(double[] x, double tolerance, int M) {
+        checkVector(operator, x);
+        int n = x.length;
+        double[] current = x.clone();
+        double[] r = v[0];
+
+        double bNorm = Matrix.norm(bVector);
+        if (bNorm == 0) {
+            bNorm = 1;
+        }
+        double beta = residual(operator, bVector, current, r);
+        int counter = 0;
+        while (beta / bNorm > tolerance && counter < M) {
+            for (int i = 0; i < n; i++) {
+                r[i] /= beta;
+            }
+            java.util.Arrays.fill(g, 0);
+            g[0] = beta;
+
+            int k = 0;
+            while (k < restart && counter < M) {
+                double[] vk = v[k];
+                if (preconditioner != null) {
+                    preconditioner.apply(vk, z);
+                    operator.apply(z, w);
+                } else {
+                    operator.apply(vk, w);
+                }
+
+                // Modified Gram-Schmidt against the basis so far
+                for (int i = 0; i <= k; i++) {
+                    double hik = Matrix.dotProduct(w, v[i]);
+                    h[i][k] = hik;
+                    double[] vi = v[i];
+                    for (int t = 0; t < n; t++) {
+                        w[t] -= hik * vi[t];
+                    }
+                }
+                double wNorm = Matrix.norm(w);
+                h[k + 1][k] = wNorm;
+                if (wNorm != 0) {
+                    double[] next = v[k + 1];
+                    for (int t = 0; t < n; t++) {
+                        next[t] = w[t] / wNorm;
+                    }
+                }
+
+                // Apply the earlier rotations to the new column, then zero h[k+1][k]
+                for (int i = 0; i < k; i++) {
+                    double a = h[i][k];
+                    double b = h[i + 1][k];
+                    h[i][k] = cs[i] * a + sn[i] * b;
+                    h[i + 1][k] = -sn[i] * a + cs[i] * b;
+                }
+                double a = h[k][k];
+                double b = h[k + 1][k];
+                double rot = Math.sqrt(a * a + b * b);
+                cs[k] = rot == 0 ? 1 : a / rot;
+                sn[k] = rot == 0 ? 0 : b / rot;
+                h[k][k] = rot;
+                h[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+
+                k++;
+                counter++;
+                numOfIterations++;
+                if (Math.abs(g[k]) / bNorm <= tolerance || wNorm == 0) {
+                    break;
+                }
+            }
+
+            // y = H^-1 g, then x += (M^-1) V y
+            for (int i = k - 1; i >= 0; i--) {
+                double sum = g[i];
+                for (int j = i + 1; j < k; j++) {
+                    sum -= h[i][j] * y[j];
+                }
+                y[i] = sum / h[i][i];
+            }
+            java.util.Arrays.fill(w, 0);
+            for (int i = 0; i < k; i++) {
+                double yi = y[i];
+                double[] vi = v[i];
+                for (int t = 0; t < n; t++) {
+                    w[t] += yi * vi[t];
+                }
+            }
+            if (preconditioner != null) {
+                preconditioner.apply(w, z);
+                for (int t = 0; t < n; t++) {
+                    current[t] += z[t];
+                }
+            } else {
+                for (int t = 0; t < n; t++) {
+                    current[t] += w[t];
+                }
+            }
+            beta = residual(operator, bVector, current, r);
+        }
+
+        lastIterations = counter;
+        if (beta / bNorm > tolerance) {
+            if (verbose) {
+                System.out.println("GMRES Output for x(N): null");
+                System.out.println("Too many iterations without reaching a accurate answer.");
+            }
+            return null;
+        }
+        if (verbose) {
+            System.out.println("GMRES Output for x(N): " + formatVector(current));
+            System.out.println("Number of Iterations using GMRES Algorithm: " + counter);
+        }
+        return current;
+    }
+
+    public double numOfIterations() {
+        return numOfIterations;
+    }
+}
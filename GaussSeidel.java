@@ -1,3 +1,5 @@
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Created by Maxwell on 11/22/2015.
  * Perform Gauss-Seidel Iterations on a Matrix
@@ -11,63 +13,180 @@ public class GaussSeidel extends Iteration {
 
     public final Matrix a;
 
+    private final SparseMatrix operator;
+    private final double[] invDiag;
+    private double omega;
+    private boolean symmetric;
+    private int[][] colorClasses;
+    private ForkJoinPool pool;
+
     public GaussSeidel() {
-        this.aContents = new double[][] {{1, 0.5, 0.3333333}, {0.5, 1, 0.25}, {0.33333, 0.25, 1}};
-        this.bVector = new double[] {0.1, 0.1, 0.1};
-        this.a = new Matrix(aContents);
+        this(new Matrix(new double[][] {{1, 0.5, 0.3333333}, {0.5, 1, 0.25}, {0.33333, 0.25, 1}}),
+                new double[] {0.1, 0.1, 0.1});
+    }
+
+    /**
+     * Set up Gauss-Seidel iterations for Ax = b
+     * @param a square matrix, should be diagonally dominant or symmetric positive definite
+     * @param b right hand side
+     */
+    public GaussSeidel(Matrix a, double[] b) {
+        this(new SparseMatrix(a), b, a);
+    }
+
+    /**
+     * Set up Gauss-Seidel iterations for Ax = b on a sparse matrix
+     * @param a square sparse matrix, should be diagonally dominant or symmetric positive definite
+     * @param b right hand side
+     */
+    public GaussSeidel(SparseMatrix a, double[] b) {
+        this(a, b, null);
+    }
+
+    private GaussSeidel(SparseMatrix operator, double[] b, Matrix a) {
+        checkSquare(operator);
+        checkVector(operator, b);
+        this.operator = operator;
+        this.invDiag = invertDiagonal(operator);
+        this.a = a;
+        this.aContents = a == null ? null : a.getArray();
+        this.bVector = b;
         this.numOfIterations = 0;
+        this.omega = 1;
+        this.symmetric = false;
     }
 
     /**
-     * Perform the gs iteration on a matrix
-     * @param x the initial vector
-     * @param tolerance the tolerance to compare to
+     * Set the relaxation factor. 1 is plain Gauss-Seidel, values above 1
+     * over-relax (SOR) and can cut the number of iterations sharply.
+     * @param omega relaxation factor, strictly between 0 and 2
+     */
+    public void setRelaxation(double omega) {
+        if (!(omega > 0 && omega < 2)) {
+            throw new IllegalArgumentException("Relaxation factor must be between 0 and 2");
+        }
+        this.omega = omega;
+    }
+
+    /**
+     * @return the relaxation factor
+     */
+    public double getRelaxation() {
+        return omega;
+    }
+
+    /**
+     * Choose symmetric sweeps (SSOR): every iteration is a forward sweep
+     * followed by a backward sweep
+     * @param symmetric true for SSOR, false for forward sweeps only
+     */
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+
+    /**
+     * Sweep the rows color by color instead of in natural order. Rows of one
+     * color do not depend on each other, so each color class is updated in
+     * parallel on the pool. Convergence is that of Gauss-Seidel in the
+     * reordered numbering.
+     * @param colors color of every row, e.g. from SparseMatrix.redBlackColoring
+     *               for a five-point grid; null returns to natural ordering
+     * @param pool pool to update each color on, or null to stay on the calling thread
+     */
+    public void setColoring(int[] colors, ForkJoinPool pool) {
+        if (colors != null && colors.length != bVector.length) {
+            throw new IllegalArgumentException("Matrix and vector must be same length");
+        }
+        this.colorClasses = colors == null ? null : SparseMatrix.colorClasses(colors);
+        this.pool = pool;
+    }
+
+    /**
+     * Sweep in a multicolor ordering found by greedy coloring of the matrix graph
+     * @param pool pool to update each color on, or null to stay on the calling thread
+     */
+    public void useGreedyColoring(ForkJoinPool pool) {
+        setColoring(operator.greedyColoring(), pool);
+    }
+
+    /**
+     * Perform the gs iteration on a matrix. Each iteration sweeps the rows
+     * in order and overwrites x(i) as soon as it is computed, so no inverse
+     * of L+D is ever formed and one iteration costs one pass over the
+     * nonzeros of A (two with symmetric sweeps).
+     * @param x the initial vector, not modified
+     * @param tolerance the tolerance to compare to, using the stopping criterion
      * @param M the number of iterations to peform
      * @return the answer vector
      */
     public double[] gs_iter(double[] x, double tolerance, int M) {
-        Matrix s = getInverse(a);
-        double[][] tContent = {{0, -0.5, -0.33333333}, {0, 0, -0.25}, {0, 0, 0}};
-        Matrix t = new Matrix(tContent);
+        checkVector(operator, x);
 
         int counter = 0; //keep track of the number of iterations
-        double tol = 10000; //initial
-        double[] tempXVector;
-        Matrix firstFirst;
-        double[] firstPart; //s^-1(-T)(Xn)
-        double[] secondPart; //s^-1(b)
-        String output = "";
-
-        double tempXVectorNorm;
-        double xVectorNorm;
-        while (tol > tolerance && counter < M) {
-            //perform the gs iterations
-            firstFirst = s.multiply(t);
-            firstPart = Matrix.matrixVectorMultiply(firstFirst, x);
-            secondPart = Matrix.matrixVectorMultiply(s, bVector);
-            tempXVector = Matrix.plus(firstPart, secondPart);
-
-            //find norm of vectors and then subtract the
-            tempXVectorNorm = Matrix.norm(tempXVector);
-            xVectorNorm = Matrix.norm(x);
-            tol = tempXVectorNorm - xVectorNorm;
-            tol = Math.abs(tol);
+        boolean converged = false;
+        double[] current = x.clone();
+        double[] residual = new double[1];
+        double[] exactResidual = null;
+
+        double bNorm = Matrix.norm(bVector);
+        if (bNorm == 0) {
+            bNorm = 1;
+        }
+        double currentNorm;
+        double previousNorm = Matrix.norm(current);
+        while (!converged && counter < M) {
+            //perform the gs iterations in place
+            double step;
+            if (colorClasses == null) {
+                step = operator.sorSweep(bVector, invDiag, current, omega, true, residual);
+                if (symmetric) {
+                    step = Math.max(step, operator.sorSweep(bVector, invDiag, current, omega, false, residual));
+                }
+            } else {
+                step = operator.multicolorSweep(bVector, invDiag, current, omega, colorClasses, true, pool, residual);
+                if (symmetric) {
+                    step = Math.max(step, operator.multicolorSweep(bVector, invDiag, current, omega, colorClasses, false, pool, residual));
+                }
+            }
             counter++;
             numOfIterations++;
-            x = tempXVector;
+
+            switch (stoppingCriterion) {
+                case NORM_DIFFERENCE:
+                    currentNorm = Matrix.norm(current);
+                    converged = Math.abs(currentNorm - previousNorm) <= tolerance;
+                    previousNorm = currentNorm;
+                    break;
+                case STEP_DIFFERENCE:
+                    converged = step <= tolerance;
+                    break;
+                case RELATIVE_RESIDUAL:
+                    //only pay for an exact residual once the sweep's estimate passes
+                    if (Math.sqrt(residual[0]) / bNorm <= tolerance) {
+                        if (exactResidual == null) {
+                            exactResidual = new double[current.length];
+                        }
+                        converged = operator.residual(bVector, current, exactResidual) / bNorm <= tolerance;
+                    }
+                    break;
+                default:
+                    break;
+            }
         }
+        x = current;
 
-        output = "";
-        if (counter == M) {
-            System.out.println("Gauss-Seidel Output for x(N): null");
-            System.out.println("Too many iterations without reaching a accurate answer.");
+        lastIterations = counter;
+        if (!converged) {
+            if (verbose) {
+                System.out.println("Gauss-Seidel Output for x(N): null");
+                System.out.println("Too many iterations without reaching a accurate answer.");
+            }
             return null;
         }
-        for (double elem : x) {
-            output += elem + ", ";
+        if (verbose) {
+            System.out.println("Gauss-Seidel for x(N): " + formatVector(x));
+            System.out.println("Number of Iterations using Gauss-Seidel Algorithm: " + counter);
         }
-        System.out.println("Gauss-Seidel for x(N): " + output);
-        System.out.println("Number of Iterations using Gauss-Seidel Algorithm: " + counter);
         return x;
     }
     public double numOfIterations() {
@@ -91,4 +210,4 @@ public class GaussSeidel extends Iteration {
 
         return s;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,195 @@
+/**
+ * QR Decomposition by Givens rotations.
+ * For an m-by-n matrix A, finds an m-by-m orthogonal Q and an m-by-n upper
+ * triangular R with A = Q*R. Each rotation is applied directly to the two
+ * rows of R it mixes, so no rotation matrix is ever formed. The rotation
+ * that zeroes R(j,k) is stored in that entry as a single number rho
+ * (Stewart's encoding), so the rotations take no storage beyond R and are
+ * replayed in the order they were made. Q, or Q^T times a vector, is
+ * rebuilt from them only when asked for.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class GivensQR extends QRDecomposition {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Upper triangular factor, reduced in place, with the rotation that
+	 * zeroed each entry below the diagonal stored in that entry. */
+	private final double[][] R;
+
+	/** Number of rotations needed, not counting entries that were already zero. */
+	private int rotations;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** QR Decomposition of a copy of A by Givens rotations.
+	 * @param A    Rectangular matrix
+	 */
+	public GivensQR(Matrix A) {
+		super(A);
+		R = A.getArrayCopy();
+
+		// For each column zero everything below the diagonal from the bottom
+		// up, rotating the pivot row with the row being eliminated.
+		for (int k = 0; k < Math.min(m - 1, n); k++) {
+			double[] rowK = R[k];
+			for (int j = m - 1; j > k; j--) {
+				double[] rowJ = R[j];
+				double b = rowJ[k];
+				if (b == 0) {
+					continue;
+				}
+				double a = rowK[k];
+				// r takes the sign that makes c >= 0, and s = 1 when c = 0
+				double r = Math.copySign(Math.hypot(a, b), a != 0 ? a : b);
+				double c = a / r;
+				double s = b / r;
+				rowK[k] = r;
+				rotateRows(rowK, rowJ, c, s, k + 1);
+				rowJ[k] = encode(c, s);
+				rotations++;
+			}
+		}
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Extract the upper triangular factor
+	 * @return     R
+	 */
+	protected Matrix computeR() {
+		Matrix X = new Matrix(m, n);
+		double[][] C = X.getArray();
+		for (int i = 0; i < m; i++) {
+			for (int j = i; j < n; j++) {
+				C[i][j] = R[i][j];
+			}
+		}
+		return X;
+	}
+
+	/** Generate and return the transpose of the orthogonal factor
+	 * @return     Q^T, the product of all rotations
+	 */
+	public Matrix getQT() {
+		Matrix X = Matrix.identity(m, m);
+		applyQT(X.getArray());
+		return X;
+	}
+
+	/** Generate and return the orthogonal factor
+	 * @return     Q
+	 */
+	protected Matrix computeQ() {
+		return getQT().transpose();
+	}
+
+	/** Apply Q^T to a vector without forming Q
+	 * @param b    Vector with m entries
+	 * @return     Q^T b
+	 */
+	public double[] applyQT(double[] b) {
+		if (b.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		double[] y = b.clone();
+		for (int k = 0; k < Math.min(m - 1, n); k++) {
+			for (int j = m - 1; j > k; j--) {
+				double rho = R[j][k];
+				if (rho == 0) {
+					continue;
+				}
+				double c = cosine(rho);
+				double s = sine(rho);
+				double u = y[k];
+				double v = y[j];
+				y[k] = c*u + s*v;
+				y[j] = -s*u + c*v;
+			}
+		}
+		return y;
+	}
+
+	/** Apply Q^T to a block in place, each rotation mixing two whole rows
+	 * @param C    Array with m rows, overwritten with Q^T C
+	 */
+	protected void applyQT(double[][] C) {
+		if (C.length != m) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		for (int k = 0; k < Math.min(m - 1, n); k++) {
+			for (int j = m - 1; j > k; j--) {
+				double rho = R[j][k];
+				if (rho != 0) {
+					rotateRows(C[k], C[j], cosine(rho), sine(rho), 0);
+				}
+			}
+		}
+	}
+
+	/** Number of rotations needed to reduce A
+	 * @return     Rotation count
+	 */
+	public int getRotationCount() {
+		return rotations;
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	/**
+	 * Encodes a rotation with c &gt;= 0 as one number: 1 for c = 0 (so s = 1),
+	 * s/2 when |s| &lt; c and 2/c (with the sign of s) otherwise. Whichever of
+	 * c and s is smaller is stored, so the other is recovered accurately.
+	 * A rotation never encodes to 0, which marks an entry that needed none.
+	 */
+	private static double encode(double c, double s) {
+		if (c == 0) {
+			return 1;
+		}
+		if (Math.abs(s) < c) {
+			return s / 2;
+		}
+		return Math.copySign(2 / c, s);
+	}
+
+	private static double cosine(double rho) {
+		if (rho == 1) {
+			return 0;
+		}
+		if (Math.abs(rho) < 1) {
+			return Math.sqrt(1 - 4*rho*rho);
+		}
+		return 2 / Math.abs(rho);
+	}
+
+	private static double sine(double rho) {
+		if (rho == 1) {
+			return 1;
+		}
+		if (Math.abs(rho) < 1) {
+			return 2 * rho;
+		}
+		double c = 2 / Math.abs(rho);
+		return Math.copySign(Math.sqrt(1 - c*c), rho);
+	}
+
+	private static void rotateRows(double[] x, double[] y, double c, double s, int from) {
+		for (int col = from; col < x.length; col++) {
+			double u = x[col];
+			double v = y[col];
+			x[col] = c*u + s*v;
+			y[col] = -s*u + c*v;
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
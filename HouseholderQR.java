@@ -0,0 +1,411 @@
+/**
+ * QR Decomposition by Householder reflections in compact form.
+ * For an m-by-n matrix A, finds an m-by-m orthogonal Q and an m-by-n upper
+ * triangular R with A = Q*R. Q is the product of reflectors
+ * H_k = I - tau_k v_k v_k^T, stored LAPACK-style: R occupies the upper
+ * triangle of the work array and each v_k (with an implied leading 1)
+ * occupies the column below the diagonal, so no reflector matrix is formed.
+ * Columns are factored in panels; each panel's reflectors are combined into
+ * the WY form H_1...H_b = I - V T V^T and applied to the rest of the matrix
+ * as a few matrix-matrix products instead of one rank-1 update per column.
+ * Q is only built if asked for.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class HouseholderQR extends QRDecomposition {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Number of columns factored together as one panel. */
+	private static final int BLOCK_SIZE = 32;
+
+	/** Trailing columns updated together, so a BLOCK_SIZE x COLUMN_TILE
+	 * panel of W (32 KB) stays in cache while every row of C streams past it. */
+	private static final int COLUMN_TILE = 128;
+
+	/** R in the upper triangle, reflector vectors below the diagonal. */
+	private final double[][] QR;
+
+	/** Scalar factors of the reflectors. */
+	private final double[] tau;
+
+	/** Number of reflectors, min(m, n). */
+	private final int k;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** QR Decomposition of a copy of A by Householder reflections.
+	 * @param A    Rectangular matrix
+	 */
+	public HouseholderQR(Matrix A) {
+		this(A, BLOCK_SIZE);
+	}
+
+	/** QR Decomposition with a given panel width; 1 applies every reflector
+	 * as its own rank-1 update.
+	 * @param A         Rectangular matrix
+	 * @param blockSize Number of columns per panel
+	 */
+	HouseholderQR(Matrix A, int blockSize) {
+		super(A);
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be positive.");
+		}
+		k = Math.min(m, n);
+		QR = A.getArrayCopy();
+		tau = new double[k];
+
+		double[][] T = new double[blockSize][blockSize];
+		double[][] W = new double[blockSize][COLUMN_TILE];
+		for (int k0 = 0; k0 < k; k0 += blockSize) {
+			int k1 = Math.min(k0 + blockSize, k);
+			boolean blocked = k1 < k && k1 - k0 > 1;
+			for (int j = k0; j < k1; j++) {
+				reflectColumn(j);
+				applyReflector(j, j + 1, blocked ? k1 : n);
+			}
+			if (blocked) {
+				buildT(k0, k1, T);
+				applyBlock(k0, k1, T, W);
+			}
+		}
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Extract the upper triangular factor
+	 * @return     R
+	 */
+	protected Matrix computeR() {
+		Matrix X = new Matrix(m, n);
+		double[][] R = X.getArray();
+		for (int i = 0; i < k; i++) {
+			for (int j = i; j < n; j++) {
+				R[i][j] = QR[i][j];
+			}
+		}
+		return X;
+	}
+
+	/** Return the Householder vectors
+	 * @return     Lower trapezoidal m-by-k matrix whose columns are the v_k,
+	 *             with the implied unit diagonal filled in
+	 */
+	public Matrix getH() {
+		Matrix X = new Matrix(m, k);
+		double[][] H = X.getArray();
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < k && j <= i; j++) {
+				H[i][j] = (i == j) ? 1.0 : QR[i][j];
+			}
+		}
+		return X;
+	}
+
+	/** Generate and return the orthogonal factor
+	 * @return     Q = H_1 H_2 ... H_k, m-by-m
+	 */
+	protected Matrix computeQ() {
+		Matrix X = Matrix.identity(m, m);
+		double[][] Q = X.getArray();
+		double[] w = new double[m];
+		for (int j = k - 1; j >= 0; j--) {
+			reflect(j, Q, j, m, w);
+		}
+		return X;
+	}
+
+	/** Generate and return the transpose of the orthogonal factor
+	 * @return     Q^T, m-by-m
+	 */
+	public Matrix getQT() {
+		return getQ().transpose();
+	}
+
+	/** Apply Q^T to a vector without forming Q
+	 * @param b    Vector with m entries
+	 * @return     Q^T b
+	 */
+	public double[] applyQT(double[] b) {
+		if (b.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		double[] y = b.clone();
+		for (int j = 0; j < k; j++) {
+			if (tau[j] == 0) {
+				continue;
+			}
+			double s = y[j];
+			for (int i = j + 1; i < m; i++) {
+				s += QR[i][j] * y[i];
+			}
+			s *= tau[j];
+			y[j] -= s;
+			for (int i = j + 1; i < m; i++) {
+				y[i] -= s * QR[i][j];
+			}
+		}
+		return y;
+	}
+
+	/** Apply Q^T to a block in place, one reflector at a time across all columns
+	 * @param C    Array with m rows, overwritten with Q^T C
+	 */
+	protected void applyQT(double[][] C) {
+		if (C.length != m) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		int nc = m == 0 ? 0 : C[0].length;
+		double[] w = new double[nc];
+		for (int j = 0; j < k; j++) {
+			reflect(j, C, 0, nc, w);
+		}
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	/**
+	 * Computes the reflector that zeroes column j below the diagonal,
+	 * storing beta on the diagonal, v below it and the factor in tau[j].
+	 * The norm is taken of the column divided by its largest entry, as in
+	 * tred2 and orthes, so tiny or huge entries do not underflow or
+	 * overflow when squared.
+	 */
+	private void reflectColumn(int j) {
+		double alpha = QR[j][j];
+		double scale = 0;
+		for (int i = j + 1; i < m; i++) {
+			scale = Math.max(scale, Math.abs(QR[i][j]));
+		}
+		if (scale == 0) {
+			tau[j] = 0;
+			return;
+		}
+		scale = Math.max(scale, Math.abs(alpha));
+		double h = 0;
+		for (int i = j; i < m; i++) {
+			double x = QR[i][j] / scale;
+			h += x * x;
+		}
+		double norm = scale * Math.sqrt(h);
+		double beta = alpha >= 0 ? -norm : norm;
+		tau[j] = (beta - alpha) / beta;
+		double divisor = alpha - beta;
+		for (int i = j + 1; i < m; i++) {
+			QR[i][j] /= divisor;
+		}
+		QR[j][j] = beta;
+	}
+
+	/** Apply H_j to columns c0..c1-1 of the work array as a rank-1 update. */
+	private void applyReflector(int j, int c0, int c1) {
+		if (c0 >= c1 || tau[j] == 0) {
+			return;
+		}
+		double[] w = new double[c1 - c0];
+		double[] rowJ = QR[j];
+		for (int c = c0; c < c1; c++) {
+			w[c - c0] = rowJ[c];
+		}
+		for (int i = j + 1; i < m; i++) {
+			double v = QR[i][j];
+			if (v != 0) {
+				double[] row = QR[i];
+				for (int c = c0; c < c1; c++) {
+					w[c - c0] += v * row[c];
+				}
+			}
+		}
+		double t = tau[j];
+		for (int c = c0; c < c1; c++) {
+			rowJ[c] -= t * w[c - c0];
+		}
+		for (int i = j + 1; i < m; i++) {
+			double v = t * QR[i][j];
+			if (v != 0) {
+				double[] row = QR[i];
+				for (int c = c0; c < c1; c++) {
+					row[c] -= v * w[c - c0];
+				}
+			}
+		}
+	}
+
+	/** Apply H_j to columns c0..c1-1 of another m-row array using workspace w. */
+	private void reflect(int j, double[][] C, int c0, int c1, double[] w) {
+		if (tau[j] == 0) {
+			return;
+		}
+		double[] rowJ = C[j];
+		for (int c = c0; c < c1; c++) {
+			w[c] = rowJ[c];
+		}
+		for (int i = j + 1; i < m; i++) {
+			double v = QR[i][j];
+			double[] row = C[i];
+			for (int c = c0; c < c1; c++) {
+				w[c] += v * row[c];
+			}
+		}
+		double t = tau[j];
+		for (int c = c0; c < c1; c++) {
+			rowJ[c] -= t * w[c];
+		}
+		for (int i = j + 1; i < m; i++) {
+			double v = t * QR[i][j];
+			double[] row = C[i];
+			for (int c = c0; c < c1; c++) {
+				row[c] -= v * w[c];
+			}
+		}
+	}
+
+	/** V entry for global row i and panel column j. */
+	private double v(int i, int j) {
+		return i < j ? 0.0 : (i == j ? 1.0 : QR[i][j]);
+	}
+
+	/**
+	 * Forms the upper triangular T of the panel k0..k1-1 such that
+	 * H_k0 ... H_(k1-1) = I - V T V^T. The inner products of the reflectors
+	 * are gathered first in one pass down the rows of V.
+	 */
+	private void buildT(int k0, int k1, double[][] T) {
+		int b = k1 - k0;
+		// G(p,q) = v_p^T v_q for q < p
+		double[][] G = new double[b][b];
+		for (int i = k0; i < m; i++) {
+			double[] row = QR[i];
+			int pEnd = Math.min(b, i - k0 + 1);
+			for (int p = 1; p < pEnd; p++) {
+				double vp = v(i, k0 + p);
+				double[] gp = G[p];
+				if (i >= k1) {
+					for (int q = 0; q < p; q++) {
+						gp[q] += row[k0 + q] * vp;
+					}
+				} else {
+					for (int q = 0; q < p; q++) {
+						gp[q] += v(i, k0 + q) * vp;
+					}
+				}
+			}
+		}
+		for (int p = 0; p < b; p++) {
+			int jp = k0 + p;
+			// T(0:p-1,p) = -tau_p T(0:p-1,0:p-1) V(:,0:p-1)^T v_p
+			double[] z = G[p];
+			for (int q = 0; q < p; q++) {
+				double s = 0;
+				for (int r = q; r < p; r++) {
+					s += T[q][r] * z[r];
+				}
+				T[q][p] = -tau[jp] * s;
+			}
+			T[p][p] = tau[jp];
+		}
+	}
+
+	/**
+	 * Applies (I - V T V^T)^T to the trailing columns k1..n-1 as
+	 * W = V^T C, W = T^T W, C = C - V W, one tile of COLUMN_TILE columns at
+	 * a time so the tile of W is reused from cache by every row of C. Both
+	 * products are unrolled four ways, so each row of W is loaded and stored
+	 * once per four rows of C, and each row of C once per four rows of W.
+	 */
+	private void applyBlock(int k0, int k1, double[][] T, double[][] W) {
+		int b = k1 - k0;
+		for (int c0 = k1; c0 < n; c0 += COLUMN_TILE) {
+			int c1 = Math.min(c0 + COLUMN_TILE, n);
+			int w = c1 - c0;
+			for (int p = 0; p < b; p++) {
+				java.util.Arrays.fill(W[p], 0, w, 0.0);
+			}
+
+			// W = V^T C; row i of V has nonzeros in panel columns 0..i-k0,
+			// and every row from k1 down is full, so four are taken at once
+			int i = k0;
+			for (; i < k1; i++) {
+				double[] row = QR[i];
+				for (int p = 0; p <= i - k0; p++) {
+					double vp = v(i, k0 + p);
+					double[] wp = W[p];
+					for (int c = 0; c < w; c++) {
+						wp[c] += vp * row[c0 + c];
+					}
+				}
+			}
+			for (; i + 3 < m; i += 4) {
+				double[] r0 = QR[i], r1 = QR[i+1], r2 = QR[i+2], r3 = QR[i+3];
+				for (int p = 0; p < b; p++) {
+					double v0 = r0[k0 + p], v1 = r1[k0 + p], v2 = r2[k0 + p], v3 = r3[k0 + p];
+					double[] wp = W[p];
+					for (int c = 0; c < w; c++) {
+						int j = c0 + c;
+						wp[c] += v0 * r0[j] + v1 * r1[j] + v2 * r2[j] + v3 * r3[j];
+					}
+				}
+			}
+			for (; i < m; i++) {
+				double[] row = QR[i];
+				for (int p = 0; p < b; p++) {
+					double vp = row[k0 + p];
+					double[] wp = W[p];
+					for (int c = 0; c < w; c++) {
+						wp[c] += vp * row[c0 + c];
+					}
+				}
+			}
+
+			// W = T^T W, bottom row first since T is upper triangular
+			for (int p = b - 1; p >= 0; p--) {
+				double[] wp = W[p];
+				double tpp = T[p][p];
+				for (int c = 0; c < w; c++) {
+					wp[c] *= tpp;
+				}
+				for (int q = 0; q < p; q++) {
+					double tqp = T[q][p];
+					if (tqp != 0) {
+						double[] wq = W[q];
+						for (int c = 0; c < w; c++) {
+							wp[c] += tqp * wq[c];
+						}
+					}
+				}
+			}
+
+			// C = C - V W
+			for (i = k0; i < m; i++) {
+				double[] row = QR[i];
+				int pEnd = Math.min(b, i - k0 + 1);
+				int p = 0;
+				for (; p + 3 < pEnd; p += 4) {
+					double v0 = v(i, k0 + p), v1 = v(i, k0 + p + 1);
+					double v2 = v(i, k0 + p + 2), v3 = v(i, k0 + p + 3);
+					double[] w0 = W[p], w1 = W[p+1], w2 = W[p+2], w3 = W[p+3];
+					for (int c = 0; c < w; c++) {
+						row[c0 + c] -= v0 * w0[c] + v1 * w1[c] + v2 * w2[c] + v3 * w3[c];
+					}
+				}
+				for (; p < pEnd; p++) {
+					double vp = v(i, k0 + p);
+					double[] wp = W[p];
+					for (int c = 0; c < w; c++) {
+						row[c0 + c] -= vp * wp[c];
+					}
+				}
+			}
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
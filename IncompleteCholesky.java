@@ -0,0 +1,102 @@
+/**
+ * Zero fill-in incomplete Cholesky preconditioner, M = L L^T where L has
+ * the same sparsity as the lower triangle of a symmetric positive definite A
+ */
+public class IncompleteCholesky implements Preconditioner {
+    private final int n;
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    private final double[] values;
+
+    /**
+     * Factor the lower triangle of a
+     * @param a symmetric positive definite matrix; only entries on and below the diagonal are read
+     * @throws ArithmeticException if a non-positive pivot appears
+     */
+    public IncompleteCholesky(SparseMatrix a) {
+        if (a.getRowDimension() != a.getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix is not square");
+        }
+        n = a.getRowDimension();
+        int[] aPtr = a.getRowPointers();
+        int[] aIdx = a.getColumnIndices();
+        double[] aVal = a.getValues();
+
+        // Copy the lower triangle; each row ends with its diagonal
+        rowPtr = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int count = 0;
+            for (int k = aPtr[i]; k < aPtr[i + 1] && aIdx[k] <= i; k++) {
+                count++;
+            }
+            rowPtr[i + 1] = rowPtr[i] + count;
+        }
+        colIdx = new int[rowPtr[n]];
+        values = new double[rowPtr[n]];
+        for (int i = 0; i < n; i++) {
+            int dest = rowPtr[i];
+            for (int k = aPtr[i]; k < aPtr[i + 1] && aIdx[k] <= i; k++) {
+                colIdx[dest] = aIdx[k];
+                values[dest] = aVal[k];
+                dest++;
+            }
+            if (dest == rowPtr[i] || colIdx[dest - 1] != i) {
+                throw new ArithmeticException("Incomplete Cholesky needs a nonzero diagonal in every row");
+            }
+        }
+
+        // L(i,j) = (A(i,j) - sum_k<j L(i,k) L(j,k)) / L(j,j), L(i,i) = sqrt(A(i,i) - sum_k<i L(i,k)^2)
+        for (int i = 0; i < n; i++) {
+            int start = rowPtr[i];
+            int diag = rowPtr[i + 1] - 1;
+            for (int p = start; p < diag; p++) {
+                int j = colIdx[p];
+                double sum = values[p] - sparseDot(start, p, rowPtr[j], rowPtr[j + 1] - 1);
+                values[p] = sum / values[rowPtr[j + 1] - 1];
+            }
+            double d = values[diag] - sparseDot(start, diag, start, diag);
+            if (d <= 0) {
+                throw new ArithmeticException("Incomplete Cholesky breakdown at row " + i);
+            }
+            values[diag] = Math.sqrt(d);
+        }
+    }
+
+    public void apply(double[] r, double[] z) {
+        // Forward solve L y = r into z
+        for (int i = 0; i < n; i++) {
+            double sum = r[i];
+            int diag = rowPtr[i + 1] - 1;
+            for (int k = rowPtr[i]; k < diag; k++) {
+                sum -= values[k] * z[colIdx[k]];
+            }
+            z[i] = sum / values[diag];
+        }
+        // Backward solve L^T z = y in place, scattering each solved entry up its row
+        for (int i = n - 1; i >= 0; i--) {
+            int diag = rowPtr[i + 1] - 1;
+            double zi = z[i] / values[diag];
+            z[i] = zi;
+            for (int k = rowPtr[i]; k < diag; k++) {
+                z[colIdx[k]] -= values[k] * zi;
+            }
+        }
+    }
+
+    /** Dot product of two sorted stretches of L, matching on column */
+    private double sparseDot(int p, int pEnd, int q, int qEnd) {
+        double sum = 0;
+        while (p < pEnd && q < qEnd) {
+            int cp = colIdx[p];
+            int cq = colIdx[q];
+            if (cp == cq) {
+                sum += values[p++] * values[q++];
+            } else if (cp < cq) {
+                p++;
+            } else {
+                q++;
+            }
+        }
+        return sum;
+    }
+}
@@ -3,6 +3,45 @@
  * Abstract class that will check squareness of a matrix and if the matrix is invertible
  */
 public abstract class Iteration {
+
+    protected StoppingCriterion stoppingCriterion = StoppingCriterion.STEP_DIFFERENCE;
+    protected boolean verbose = true;
+    protected int lastIterations = 0;
+
+    /**
+     * Turn the printing of each solve's input, result and iteration count on or off.
+     * Solvers run quietly when many solves happen at once.
+     * @param verbose true to print, false to stay silent
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @return the number of iterations the most recent solve on this object took
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * Choose how the stationary iterations decide they have converged.
+     * Krylov solvers always test the relative residual.
+     * @param criterion test to compare against the tolerance
+     */
+    public void setStoppingCriterion(StoppingCriterion criterion) {
+        if (criterion == null) {
+            throw new IllegalArgumentException("Stopping criterion must not be null");
+        }
+        this.stoppingCriterion = criterion;
+    }
+
+    /**
+     * @return the test compared against the tolerance
+     */
+    public StoppingCriterion getStoppingCriterion() {
+        return stoppingCriterion;
+    }
     /**
      * check if matrix is square
      * @param a
@@ -15,6 +54,72 @@ public abstract class Iteration {
         }
     }
 
+    /**
+     * check if a sparse or matrix-free operator is square
+     * @param a
+     */
+    public void checkSquare(LinearOperator a) {
+        if (a.getRowDimension() != a.getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix is not square");
+        }
+    }
+
+    /**
+     * check that a vector has one entry per row of the matrix
+     * @param a
+     * @param v
+     */
+    public void checkVector(LinearOperator a, double[] v) {
+        if (v.length != a.getRowDimension()) {
+            throw new IllegalArgumentException("Matrix and vector must be same length");
+        }
+    }
+
+    /**
+     * Residual r = b - A*x of a square system, computed into r
+     * @param a operator
+     * @param b right hand side
+     * @param x current solution
+     * @param r output, must not be x
+     * @return ||r||
+     */
+    public static double residual(LinearOperator a, double[] b, double[] x, double[] r) {
+        a.apply(x, r);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = b[i] - r[i];
+        }
+        return Matrix.norm(r);
+    }
+
+    /**
+     * Format a vector the way the solvers print it, "a, b, c, "
+     * @param v vector to format
+     * @return formatted entries
+     */
+    public static String formatVector(double[] v) {
+        StringBuilder output = new StringBuilder(v.length * 22);
+        for (double elem : v) {
+            output.append(elem).append(", ");
+        }
+        return output.toString();
+    }
+
+    /**
+     * Reciprocals of the diagonal entries, the D^-1 used by the splitting methods
+     * @param a square matrix
+     * @return 1 / a(i,i) for every row
+     */
+    public static double[] invertDiagonal(SparseMatrix a) {
+        double[] d = a.getDiagonal();
+        for (int i = 0; i < d.length; i++) {
+            if (d[i] == 0) {
+                throw new IllegalArgumentException("Matrix has a zero on the diagonal");
+            }
+            d[i] = 1 / d[i];
+        }
+        return d;
+    }
+
     /**
      * Check to see if matrix is invertible
      * @param a
@@ -1,92 +1,174 @@
 /**
  * Created by Maxwell on 11/22/2015.
  * Tester class to run both jacobi and gauss-seidel iterative methods
+ * Every random start is solved by both methods; the starts are split into
+ * chunks that run on a thread pool, each chunk with its own solvers and
+ * random stream, and the per-run results are gathered into plain arrays
+ * before any statistics are printed.
+ * Usage: java IterativeMethodsTester [starts] [threads]
  */
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class IterativeMethodsTester {
-    public static void main(String[] args) {
-        Random rand = new Random();
-        double[] xExact = new double[] {((double)9/(double)190), ((double)28/(double)475), ((double)33/(double)475)};
-        double[] tempVectJacobi;
-        double[] tempVectGS;
-        double[] avgVectJacobi = new double[] {0, 0, 0};
-        double[] avgVectGS = new double[] {0, 0, 0};
-        double exactNorm = 0;
-        double avgIterationNumJacobi = 0;
-        double avgIterationNumGS = 0;
-        String output;
-        double tol = 0.00005;
-        int m = 100;
-        int counter = 1;
-        Jacobi j = new Jacobi();
-        GaussSeidel g = new GaussSeidel();
+    private static final int CHUNK = 256;
+    private static final int MAX_PRINTED_RUNS = 100;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        final int starts = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final double[] xExact = new double[] {((double)9/(double)190), ((double)28/(double)475), ((double)33/(double)475)};
+        final double tol = 0.00005;
+        final int m = 100;
+        final int dim = xExact.length;
+
+        // Per-run results, indexed by run; a solve that fails to converge
+        // records its iteration count with NaN for the vector and error.
+        final double[] initial = new double[starts * dim];
+        final double[] resultJacobi = new double[starts * dim];
+        final double[] resultGS = new double[starts * dim];
+        final int[] iterationsJacobi = new int[starts];
+        final int[] iterationsGS = new int[starts];
+        final double[] errorJacobi = new double[starts];
+        final double[] errorGS = new double[starts];
 
-        double[] x = new double[] {0, 0, 0};
-        while (counter < 101) {
-            for (int i = 0; i < 3; i++) {
-                double randomNum = -1 + (1 - (-1)) * rand.nextDouble();
-                x[i] = randomNum;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        SplittableRandom rand = new SplittableRandom();
+        List<Future<?>> chunks = new ArrayList<Future<?>>();
+        long startTime = System.nanoTime();
+        //shut the pool down even if a chunk fails, or its threads keep the JVM alive
+        try {
+            for (int first = 0; first < starts; first += CHUNK) {
+                final int from = first;
+                final int to = Math.min(first + CHUNK, starts);
+                final SplittableRandom chunkRand = rand.split();
+                chunks.add(executor.submit(() -> {
+                    Jacobi j = new Jacobi();
+                    GaussSeidel g = new GaussSeidel();
+                    j.setVerbose(false);
+                    g.setVerbose(false);
+                    double[] x = new double[dim];
+                    for (int run = from; run < to; run++) {
+                        for (int i = 0; i < dim; i++) {
+                            x[i] = chunkRand.nextDouble(-1, 1);
+                            initial[run * dim + i] = x[i];
+                        }
+                        double[] xJacobi = j.jacobi_iter(x, tol, m);
+                        iterationsJacobi[run] = j.getLastIterations();
+                        errorJacobi[run] = record(xJacobi, xExact, resultJacobi, run);
+                        double[] xGS = g.gs_iter(x, tol, m);
+                        iterationsGS[run] = g.getLastIterations();
+                        errorGS[run] = record(xGS, xExact, resultGS, run);
+                    }
+                }));
             }
-            System.out.println("Vector " + counter);
-            tempVectJacobi = j.jacobi_iter(x, tol, m);
-            tempVectGS = g.gs_iter(x, tol, m);
-            double xNorm = Matrix.norm(x);
-            exactNorm = Matrix.norm(xExact);
-            double differenceOrigal = Math.abs(xNorm - exactNorm);
-            System.out.println("The initial error for the vector: " + differenceOrigal + "\n");
-            avgIterationNumJacobi = j.numOfIterations();
-            avgIterationNumGS = g.numOfIterations();
-            //add the vector into the average vector
-            for (int i = 0; i < tempVectJacobi.length; i++) {
-                avgVectJacobi[i] += tempVectJacobi[i];
-                avgVectGS[i] += tempVectGS[i];
+            for (Future<?> chunk : chunks) {
+                chunk.get();
             }
-            counter++;
+        } finally {
+            executor.shutdown();
         }
-        output = "";
-        //find the avg vector
-        for (int i = 0; i < avgVectJacobi.length; i++) {
-            avgVectJacobi[i] = avgVectJacobi[i] / (double)100;
-        }
-        for (double elem : avgVectJacobi) {
-            output += elem + ", ";
-        }
-        avgIterationNumJacobi = avgIterationNumJacobi / 100;
-        System.out.println("Average number of Jacobi Iterations performed: " + avgIterationNumJacobi);
-        System.out.println("Average vector result after 100 Jacobi Iterations: " + output +"\n");
+        double seconds = (System.nanoTime() - startTime) / 1e9;
 
-        for (int i = 0; i < avgVectGS.length; i++) {
-            avgVectGS[i] = avgVectGS[i] / (double)100;
-        }
-        output = "";
-        for (double elem : avgVectGS) {
-            output += elem + ", ";
+        if (starts <= MAX_PRINTED_RUNS) {
+            double exactNorm = Matrix.norm(xExact);
+            for (int run = 0; run < starts; run++) {
+                double[] x = Arrays.copyOfRange(initial, run * dim, run * dim + dim);
+                System.out.println("Vector " + (run + 1) + ": " + Iteration.formatVector(x));
+                System.out.println("Jacobi for x(N): " + Iteration.formatVector(Arrays.copyOfRange(resultJacobi, run * dim, run * dim + dim))
+                        + "in " + iterationsJacobi[run] + " iterations");
+                System.out.println("Gauss-Seidel for x(N): " + Iteration.formatVector(Arrays.copyOfRange(resultGS, run * dim, run * dim + dim))
+                        + "in " + iterationsGS[run] + " iterations");
+                double differenceOrigal = Math.abs(Matrix.norm(x) - exactNorm);
+                System.out.println("The initial error for the vector: " + differenceOrigal + "\n");
+            }
         }
-        avgIterationNumGS = avgIterationNumGS / 100;
-        System.out.println("Average number of Gauss-Seidel Iterations performed: " + avgIterationNumGS);
-        System.out.println("Average vector result after 100 Gauss=Seidel Iterations: " + output +"\n");
 
-        output = "";
-        for (double elem : xExact) {
-            output += elem + ", ";
-        }
-        System.out.println("Exact vector solution: " + output);
+        System.out.println(starts + " starts solved on " + threads + " threads in " + seconds + " s\n");
+        double avgIterationNumJacobi = report("Jacobi", iterationsJacobi, errorJacobi, resultJacobi, dim);
+        double avgIterationNumGS = report("Gauss-Seidel", iterationsGS, errorGS, resultGS, dim);
+        System.out.println("Exact vector solution: " + Iteration.formatVector(xExact) + "\n");
 
-        double avgNormJacobi = Matrix.norm(avgVectJacobi);
-        double avgNormGS = Matrix.norm(avgVectGS);
-        exactNorm = Matrix.norm(xExact);
+        double ratio = avgIterationNumJacobi / avgIterationNumGS;
+        System.out.println("Ratio of average jacobi iterations to average number gauss-seidel iterations: " + ratio + " : 1");
+    }
 
-        double differenceJacobi = avgNormJacobi - exactNorm;
-        differenceJacobi = Math.abs(differenceJacobi);
+    /**
+     * Store one solve's result in its slot of the flat result array
+     * @return ||x - xExact||, or NaN if the solve did not converge
+     */
+    private static double record(double[] x, double[] xExact, double[] results, int run) {
+        int dim = xExact.length;
+        if (x == null) {
+            Arrays.fill(results, run * dim, run * dim + dim, Double.NaN);
+            return Double.NaN;
+        }
+        System.arraycopy(x, 0, results, run * dim, dim);
+        double sum = 0;
+        for (int i = 0; i < dim; i++) {
+            double d = x[i] - xExact[i];
+            sum += d * d;
+        }
+        return Math.sqrt(sum);
+    }
 
-        double differenceGS = avgNormGS - exactNorm;
-        differenceGS = Math.abs(differenceGS);
-        System.out.println("The error approximation between average Jacobi vector and exact vector: " + differenceJacobi);
-        System.out.println("The error approximation between average Gauss-Seidel vector and exact vector: " + differenceGS + "\n");
+    /**
+     * Print mean, median and 99th percentile of iterations and error for one method
+     * @return mean number of iterations
+     */
+    private static double report(String name, int[] iterations, double[] errors, double[] results, int dim) {
+        int runs = iterations.length;
+        double[] sortedIterations = new double[runs];
+        double iterationSum = 0;
+        for (int i = 0; i < runs; i++) {
+            sortedIterations[i] = iterations[i];
+            iterationSum += iterations[i];
+        }
+        Arrays.sort(sortedIterations);
 
-        double ratio = avgIterationNumJacobi / avgIterationNumGS;
-        System.out.println("Ratio of average jacobi iterations to average number gauss-seidel iterations: " + ratio + " : 1");
+        // Only converged runs contribute to the error and the average vector
+        double[] sortedErrors = new double[runs];
+        double[] avgVect = new double[dim];
+        int converged = 0;
+        double errorSum = 0;
+        for (int i = 0; i < runs; i++) {
+            if (!Double.isNaN(errors[i])) {
+                sortedErrors[converged++] = errors[i];
+                errorSum += errors[i];
+                for (int k = 0; k < dim; k++) {
+                    avgVect[k] += results[i * dim + k];
+                }
+            }
+        }
+        Arrays.sort(sortedErrors, 0, converged);
+        for (int k = 0; k < dim; k++) {
+            avgVect[k] /= converged;
+        }
 
+        double avgIterations = iterationSum / runs;
+        System.out.println(name + " runs converged: " + converged + " of " + runs);
+        System.out.println(name + " iterations mean: " + avgIterations
+                + ", p50: " + percentile(sortedIterations, runs, 0.50)
+                + ", p99: " + percentile(sortedIterations, runs, 0.99));
+        System.out.println(name + " error mean: " + (errorSum / converged)
+                + ", p50: " + percentile(sortedErrors, converged, 0.50)
+                + ", p99: " + percentile(sortedErrors, converged, 0.99));
+        System.out.println("Average vector result after " + name + " Iterations: " + Iteration.formatVector(avgVect) + "\n");
+        return avgIterations;
+    }
 
+    /** Nearest-rank percentile of the first count entries of a sorted array. */
+    private static double percentile(double[] sorted, int count, double p) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(p * count);
+        return sorted[Math.max(0, rank - 1)];
     }
 }
@@ -10,73 +10,211 @@ public class Jacobi extends Iteration{
 
     public final Matrix a;
 
+    private final SparseMatrix operator;
+    private final double[] invDiag;
+
     public Jacobi() {
-        this.aContents = new double[][] {{1, 0.5, 0.3333333}, {0.5, 1, 0.25}, {0.33333, 0.25, 1}};
-        this.bVector = new double[] {0.1, 0.1, 0.1};
-        this.a = new Matrix(aContents);
+        this(new Matrix(new double[][] {{1, 0.5, 0.3333333}, {0.5, 1, 0.25}, {0.33333, 0.25, 1}}),
+                new double[] {0.1, 0.1, 0.1});
+    }
+
+    /**
+     * Set up Jacobi iterations for Ax = b
+     * @param a square matrix, should be diagonally dominant for the iterations to converge
+     * @param b right hand side
+     */
+    public Jacobi(Matrix a, double[] b) {
+        this(new SparseMatrix(a), b, a);
+    }
+
+    /**
+     * Set up Jacobi iterations for Ax = b on a sparse matrix
+     * @param a square sparse matrix, should be diagonally dominant for the iterations to converge
+     * @param b right hand side
+     */
+    public Jacobi(SparseMatrix a, double[] b) {
+        this(a, b, null);
+    }
+
+    private Jacobi(SparseMatrix operator, double[] b, Matrix a) {
+        checkSquare(operator);
+        checkVector(operator, b);
+        this.operator = operator;
+        this.invDiag = invertDiagonal(operator);
+        this.a = a;
+        this.aContents = a == null ? null : a.getArray();
+        this.bVector = b;
         this.numOfIterations = 0;
     }
 
     /**
-     * Perform Jacobi iterations on a matrix
-     * @param x vector containing the initial guess
-     * @param tolerance tolerance to which answers will be compared
+     * Perform Jacobi iterations on a matrix. D^-1 is formed once, and each
+     * iteration is a single sweep over the nonzeros of A that writes into a
+     * second buffer, the two buffers swapping roles every iteration.
+     * @param x vector containing the initial guess, not modified
+     * @param tolerance tolerance to which answers will be compared, using the stopping criterion
      * @param M number of iterations being performed
      */
     public double[] jacobi_iter(double[] x, double tolerance, int M) {
-        double[][] sContent = {{1.0, 0, 0}, {0, 1.0, 0}, {0, 0, 1.0}};
-        Matrix s = new Matrix(sContent);
-
-        double[][] tContent = {{0, -0.5, -0.33333333}, {-0.5, 0, -0.25}, {-0.3333333333, -0.25, 0}};
-        Matrix t = new Matrix(tContent);
+        checkVector(operator, x);
 
         //keep track of the number of iterations
 
         int counter = 0;
-        double tol = 10000; //initial
-        double[] tempXVector;
-        Matrix firstFirst;
-        double[] firstPart; //s^-1(-T)(Xn)
-        double[] secondPart; //s^-1(b)
-        String output = "";
-
-        double tempXVectorNorm;
-        double xVectorNorm;
-
-        for (double elem : x) {
-            output += elem + ", ";
+        boolean converged = false;
+        double[] current = x.clone();
+        double[] next = new double[x.length];
+        double[] swap;
+        double[] residual = new double[1];
+
+        double bNorm = Matrix.norm(bVector);
+        if (bNorm == 0) {
+            bNorm = 1;
+        }
+        double nextNorm;
+        double currentNorm = Matrix.norm(current);
+
+        if (verbose) {
+            System.out.println("x(0): " + formatVector(x));
         }
-        System.out.println("x(0): " + output);
-        while (tol > tolerance && counter < M) {
-            //perform the jacobi iterations
-            firstFirst = s.multiply(t);
-            firstPart = Matrix.matrixVectorMultiply(firstFirst, x);
-            secondPart = Matrix.matrixVectorMultiply(s, bVector);
-            tempXVector = Matrix.plus(firstPart, secondPart);
-
-            //find norm of vectors and then subtract the
-            tempXVectorNorm = Matrix.norm(tempXVector);
-            xVectorNorm = Matrix.norm(x);
-            tol = tempXVectorNorm - xVectorNorm;
-            tol = Math.abs(tol);
+        while (!converged && counter < M) {
+            //perform the jacobi iterations: next = current + D^-1 (b - A current)
+            double step = operator.jacobiSweep(bVector, invDiag, current, next, residual);
+
+            //the sweep measured the residual of current on the way
+            if (stoppingCriterion == StoppingCriterion.RELATIVE_RESIDUAL
+                    && Math.sqrt(residual[0]) / bNorm <= tolerance) {
+                converged = true;
+                break;
+            }
             counter++;
             numOfIterations++;
-            x = tempXVector;
+            swap = current;
+            current = next;
+            next = swap;
+
+            switch (stoppingCriterion) {
+                case NORM_DIFFERENCE:
+                    nextNorm = Matrix.norm(current);
+                    converged = Math.abs(nextNorm - currentNorm) <= tolerance;
+                    currentNorm = nextNorm;
+                    break;
+                case STEP_DIFFERENCE:
+                    converged = step <= tolerance;
+                    break;
+                default:
+                    break;
+            }
         }
+        x = current;
 
-        output = "";
-        if (counter == M) {
-            System.out.println("Jacobi Output for x(N): null");
-            System.out.println("Too many iterations without reaching a accurate answer.");
+        lastIterations = counter;
+        if (!converged) {
+            if (verbose) {
+                System.out.println("Jacobi Output for x(N): null");
+                System.out.println("Too many iterations without reaching a accurate answer.");
+            }
             return null;
         }
-        for (double elem : x) {
-            output += elem + ", ";
+        if (verbose) {
+            System.out.println("Jacobi Output for x(N): " + formatVector(x));
+            System.out.println("Number of Iterations using Jacobi Algorithm: " + counter + "\n");
         }
-        System.out.println("Jacobi Output for x(N): " + output);
-        System.out.println("Number of Iterations using Jacobi Algorithm: " + counter + "\n");
         return x;
     }
+    /**
+     * Perform Jacobi iterations for AX = B, every column of B being its own
+     * right hand side. All columns advance together through block sweeps, so
+     * A is read once per iteration however many right hand sides there are.
+     * The iteration stops when every column meets the stopping criterion.
+     * @param B right hand sides, one per column, with as many rows as A
+     * @param X initial guesses, one per column, not modified
+     * @param tolerance tolerance to which answers will be compared, using the stopping criterion
+     * @param M number of iterations being performed
+     * @return the solutions as a matrix the shape of B, or null if they did not converge
+     */
+    public Matrix jacobi_iter(Matrix B, Matrix X, double tolerance, int M) {
+        int n = operator.getRowDimension();
+        if (B.getRowDimension() != n || X.getRowDimension() != n
+                || B.getColumnDimension() != X.getColumnDimension()) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        int nx = B.getColumnDimension();
+        double[][] b = B.getArray();
+        double[][] current = X.getArrayCopy();
+        double[][] next = new double[n][nx];
+        double[][] swap;
+        double[] residual = new double[nx];
+
+        double[] bNorm = new double[nx];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < nx; j++) {
+                bNorm[j] += b[i][j] * b[i][j];
+            }
+        }
+        for (int j = 0; j < nx; j++) {
+            bNorm[j] = bNorm[j] == 0 ? 1 : Math.sqrt(bNorm[j]);
+        }
+        double[] currentNorm = columnNorms(current, nx);
+
+        int counter = 0;
+        boolean converged = false;
+        while (!converged && counter < M) {
+            double step = operator.jacobiSweep(b, invDiag, current, next, residual);
+
+            if (stoppingCriterion == StoppingCriterion.RELATIVE_RESIDUAL) {
+                converged = true;
+                for (int j = 0; j < nx && converged; j++) {
+                    converged = Math.sqrt(residual[j]) / bNorm[j] <= tolerance;
+                }
+                if (converged) {
+                    break;
+                }
+            }
+            counter++;
+            numOfIterations++;
+            swap = current;
+            current = next;
+            next = swap;
+
+            switch (stoppingCriterion) {
+                case NORM_DIFFERENCE:
+                    double[] nextNorm = columnNorms(current, nx);
+                    converged = true;
+                    for (int j = 0; j < nx; j++) {
+                        converged &= Math.abs(nextNorm[j] - currentNorm[j]) <= tolerance;
+                    }
+                    currentNorm = nextNorm;
+                    break;
+                case STEP_DIFFERENCE:
+                    converged = step <= tolerance;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        lastIterations = counter;
+        if (verbose) {
+            System.out.println("Block Jacobi for " + nx + " right hand sides: "
+                    + (converged ? counter + " iterations" : "too many iterations without reaching a accurate answer.") + "\n");
+        }
+        return converged ? new Matrix(current, n, nx) : null;
+    }
+
+    private static double[] columnNorms(double[][] x, int nx) {
+        double[] norms = new double[nx];
+        for (double[] row : x) {
+            for (int j = 0; j < nx; j++) {
+                norms[j] += row[j] * row[j];
+            }
+        }
+        for (int j = 0; j < nx; j++) {
+            norms[j] = Math.sqrt(norms[j]);
+        }
+        return norms;
+    }
+
     public double numOfIterations() {
         return numOfIterations;
     }
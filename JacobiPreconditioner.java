@@ -0,0 +1,19 @@
+/**
+ * Diagonal (Jacobi) preconditioner, M = D
+ */
+public class JacobiPreconditioner implements Preconditioner {
+    private final double[] invDiag;
+
+    /**
+     * @param a square matrix with no zeros on the diagonal
+     */
+    public JacobiPreconditioner(SparseMatrix a) {
+        this.invDiag = Iteration.invertDiagonal(a);
+    }
+
+    public void apply(double[] r, double[] z) {
+        for (int i = 0; i < r.length; i++) {
+            z[i] = r[i] * invDiag[i];
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * LU Decomposition with partial pivoting.
+ * For an n-by-n matrix A, the LU decomposition is an n-by-n unit lower
+ * triangular matrix L, an n-by-n upper triangular matrix U, and a
+ * permutation vector piv so that A(piv,:) = L*U.
+ * The factors are computed once, in place in a single array, and can then
+ * be reused to get the determinant or to solve A*x = b for any number of
+ * right hand sides in O(n^2) each.
+ * Based on the LU decomposition from http://math.nist.gov/javanumerics/jama/
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class LUDecomposition implements java.io.Serializable {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Array for internal storage of decomposition.
+	 * The strict lower triangle holds L without its unit diagonal,
+	 * the upper triangle holds U.
+	 */
+	private final double[][] LU;
+
+	/** Dimension of the matrix. */
+	private final int n;
+
+	/** Sign of the permutation, +1 or -1. */
+	private int pivsign;
+
+	/** Internal storage of pivot vector. */
+	private final int[] piv;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** LU Decomposition of a copy of A.
+	 * @param A    Square matrix
+	 * @exception  IllegalArgumentException Matrix must be square.
+	 */
+	public LUDecomposition(Matrix A) {
+		this(A, false);
+	}
+
+	/** LU Decomposition.
+	 * @param A       Square matrix
+	 * @param inPlace If true the factors overwrite the array of A instead of a copy
+	 * @exception     IllegalArgumentException Matrix must be square.
+	 */
+	public LUDecomposition(Matrix A, boolean inPlace) {
+		if (A.getRowDimension() != A.getColumnDimension()) {
+			throw new IllegalArgumentException("Matrix must be square.");
+		}
+		LU = inPlace ? A.getArray() : A.getArrayCopy();
+		n = A.getRowDimension();
+		piv = new int[n];
+		for (int i = 0; i < n; i++) {
+			piv[i] = i;
+		}
+		pivsign = 1;
+
+		// Right-looking elimination: after choosing the pivot of column k,
+		// update the trailing submatrix row by row so every inner loop runs
+		// along a contiguous row.
+		for (int k = 0; k < n; k++) {
+			int p = k;
+			for (int i = k + 1; i < n; i++) {
+				if (Math.abs(LU[i][k]) > Math.abs(LU[p][k])) {
+					p = i;
+				}
+			}
+			if (p != k) {
+				double[] t = LU[p]; LU[p] = LU[k]; LU[k] = t;
+				int s = piv[p]; piv[p] = piv[k]; piv[k] = s;
+				pivsign = -pivsign;
+			}
+			double[] rowK = LU[k];
+			double pivot = rowK[k];
+			if (pivot != 0.0) {
+				for (int i = k + 1; i < n; i++) {
+					double[] rowI = LU[i];
+					double factor = rowI[k] / pivot;
+					rowI[k] = factor;
+					if (factor != 0.0) {
+						for (int j = k + 1; j < n; j++) {
+							rowI[j] -= factor * rowK[j];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Is the matrix nonsingular?
+	 * @return     true if U, and hence A, is nonsingular.
+	 */
+	public boolean isNonsingular() {
+		for (int j = 0; j < n; j++) {
+			if (LU[j][j] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Return lower triangular factor
+	 * @return     L
+	 */
+	public Matrix getL() {
+		Matrix X = new Matrix(n, n);
+		double[][] L = X.getArray();
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < i; j++) {
+				L[i][j] = LU[i][j];
+			}
+			L[i][i] = 1.0;
+		}
+		return X;
+	}
+
+	/** Return upper triangular factor
+	 * @return     U
+	 */
+	public Matrix getU() {
+		Matrix X = new Matrix(n, n);
+		double[][] U = X.getArray();
+		for (int i = 0; i < n; i++) {
+			for (int j = i; j < n; j++) {
+				U[i][j] = LU[i][j];
+			}
+		}
+		return X;
+	}
+
+	/** Return the permutation matrix P such that P*A = L*U
+	 * @return     P
+	 */
+	public Matrix getP() {
+		Matrix X = new Matrix(n, n);
+		double[][] P = X.getArray();
+		for (int i = 0; i < n; i++) {
+			P[i][piv[i]] = 1.0;
+		}
+		return X;
+	}
+
+	/** Return pivot permutation vector
+	 * @return     piv
+	 */
+	public int[] getPivot() {
+		int[] p = new int[n];
+		System.arraycopy(piv, 0, p, 0, n);
+		return p;
+	}
+
+	/** Determinant
+	 * @return     det(A)
+	 */
+	public double det() {
+		double d = (double) pivsign;
+		for (int j = 0; j < n; j++) {
+			d *= LU[j][j];
+		}
+		return d;
+	}
+
+	/** Solve A*x = b for a single right hand side
+	 * @param b    A vector with as many entries as A has rows.
+	 * @return     x so that L*U*x = b(piv)
+	 * @exception  IllegalArgumentException Vector length must agree.
+	 * @exception  RuntimeException  Matrix is singular.
+	 */
+	public double[] solve(double[] b) {
+		double[] x = new double[n];
+		solve(b, x);
+		return x;
+	}
+
+	/** Solve A*x = b into an existing array, for loops that solve repeatedly
+	 * without allocating
+	 * @param b    A vector with as many entries as A has rows, not modified.
+	 * @param x    Output with as many entries as A has rows, must not be b.
+	 * @exception  IllegalArgumentException Vector length must agree.
+	 * @exception  RuntimeException  Matrix is singular.
+	 */
+	public void solve(double[] b, double[] x) {
+		if (b.length != n || x.length != n) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		if (!this.isNonsingular()) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+		for (int i = 0; i < n; i++) {
+			x[i] = b[piv[i]];
+		}
+		// Solve L*y = b(piv)
+		for (int i = 1; i < n; i++) {
+			double[] row = LU[i];
+			double sum = x[i];
+			for (int k = 0; k < i; k++) {
+				sum -= row[k] * x[k];
+			}
+			x[i] = sum;
+		}
+		// Solve U*x = y
+		for (int i = n - 1; i >= 0; i--) {
+			double[] row = LU[i];
+			double sum = x[i];
+			for (int k = i + 1; k < n; k++) {
+				sum -= row[k] * x[k];
+			}
+			x[i] = sum / row[i];
+		}
+	}
+
+	/** Solve A*X = B for all columns of B together
+	 * <p>The substitutions run row by row over the whole block: each row of
+	 * L and U is read once and applied to every right hand side, so the
+	 * factors are streamed through once per solve instead of once per column.
+	 * @param B    A Matrix with as many rows as A and any number of columns.
+	 * @return     X so that L*U*X = B(piv,:)
+	 * @exception  IllegalArgumentException Matrix row dimensions must agree.
+	 * @exception  RuntimeException  Matrix is singular.
+	 */
+	public Matrix solve(Matrix B) {
+		if (B.getRowDimension() != n) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		if (!this.isNonsingular()) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+		int nx = B.getColumnDimension();
+		double[][] b = B.getArray();
+		Matrix Xmat = new Matrix(n, nx);
+		double[][] X = Xmat.getArray();
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(b[piv[i]], 0, X[i], 0, nx);
+		}
+		// Solve L*Y = B(piv,:)
+		for (int i = 1; i < n; i++) {
+			double[] row = LU[i];
+			double[] xi = X[i];
+			for (int k = 0; k < i; k++) {
+				double lik = row[k];
+				if (lik != 0.0) {
+					double[] xk = X[k];
+					for (int j = 0; j < nx; j++) {
+						xi[j] -= lik * xk[j];
+					}
+				}
+			}
+		}
+		// Solve U*X = Y
+		for (int i = n - 1; i >= 0; i--) {
+			double[] row = LU[i];
+			double[] xi = X[i];
+			for (int k = i + 1; k < n; k++) {
+				double uik = row[k];
+				if (uik != 0.0) {
+					double[] xk = X[k];
+					for (int j = 0; j < nx; j++) {
+						xi[j] -= uik * xk[j];
+					}
+				}
+			}
+			double d = 1.0 / row[i];
+			for (int j = 0; j < nx; j++) {
+				xi[j] *= d;
+			}
+		}
+		return Xmat;
+	}
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,22 @@
+/**
+ * A linear map y = A*x known only through its action on a vector, so
+ * Krylov solvers can run on dense, sparse or matrix-free operators alike.
+ */
+public interface LinearOperator {
+    /**
+     * @return number of rows, the length of y
+     */
+    int getRowDimension();
+
+    /**
+     * @return number of columns, the length of x
+     */
+    int getColumnDimension();
+
+    /**
+     * Compute y = A*x into an existing array
+     * @param x input vector, not modified
+     * @param y output vector, must not be x
+     */
+    void apply(double[] x, double[] y);
+}
@@ -0,0 +1,191 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only matrix over a memory-mapped MatrixFile.
+ * The elements are never copied onto the heap; reads go straight to the
+ * mapped pages. A single mapping cannot exceed 2 GB, so the element region
+ * is mapped as consecutive chunks of CHUNK_DOUBLES doubles and element
+ * e = i*n + j is entry e % CHUNK_DOUBLES of chunk e / CHUNK_DOUBLES. Files
+ * of any size can be opened this way.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ * @see MatrixFile
+ */
+public class MappedMatrix implements LinearOperator, Closeable {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Doubles per mapped chunk, 1 GB of data. */
+	private static final int CHUNK_SHIFT = 27;
+	private static final long CHUNK_DOUBLES = 1L << CHUNK_SHIFT;
+	private static final long CHUNK_MASK = CHUNK_DOUBLES - 1;
+
+	/** Row and column dimensions. */
+	private final int m, n;
+
+	/** Mapped element chunks in order. */
+	private final DoubleBuffer[] chunks;
+
+	/** Channel the chunks were mapped from. */
+	private final FileChannel channel;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** Map a matrix file read-only.
+	 * @param file Matrix file written by MatrixFile.write
+	 * @exception  IOException The file could not be opened or is not a matrix file.
+	 */
+	MappedMatrix(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long[] dimensions = MatrixFile.readHeader(channel);
+			m = (int) dimensions[0];
+			n = (int) dimensions[1];
+			long count = dimensions[0] * dimensions[1];
+
+			int chunkCount = (int) ((count + CHUNK_DOUBLES - 1) >>> CHUNK_SHIFT);
+			chunks = new DoubleBuffer[chunkCount];
+			for (int c = 0; c < chunkCount; c++) {
+				long first = (long) c << CHUNK_SHIFT;
+				long length = Math.min(CHUNK_DOUBLES, count - first);
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+						MatrixFile.HEADER_BYTES + 8 * first, 8 * length)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Get row dimension.
+	 * @return     m, the number of rows.
+	 */
+	public int getRowDimension() {
+		return m;
+	}
+
+	/** Get column dimension.
+	 * @return     n, the number of columns.
+	 */
+	public int getColumnDimension() {
+		return n;
+	}
+
+	/** Get a single element.
+	 * @param i    Row index.
+	 * @param j    Column index.
+	 * @return     A(i,j)
+	 * @exception  ArrayIndexOutOfBoundsException
+	 */
+	public double get(int i, int j) {
+		if (i < 0 || i >= m || j < 0 || j >= n) {
+			throw new ArrayIndexOutOfBoundsException("(" + i + "," + j + ") outside " + m + "x" + n);
+		}
+		long e = (long) i * n + j;
+		return chunks[(int) (e >>> CHUNK_SHIFT)].get((int) (e & CHUNK_MASK));
+	}
+
+	/** Copy one row into an existing array with bulk reads.
+	 * @param i    Row index.
+	 * @param row  Array with at least n entries.
+	 */
+	public void getRow(int i, double[] row) {
+		if (i < 0 || i >= m) {
+			throw new ArrayIndexOutOfBoundsException("Row " + i + " outside " + m + "x" + n);
+		}
+		copy((long) i * n, row, 0, n);
+	}
+
+	/** Copy the whole matrix onto the heap.
+	 * @return     Matrix with the same elements
+	 */
+	public Matrix toMatrix() {
+		Matrix X = new Matrix(m, n);
+		double[][] C = X.getArray();
+		for (int i = 0; i < m; i++) {
+			copy((long) i * n, C[i], 0, n);
+		}
+		return X;
+	}
+
+	/** Copy the whole matrix onto the heap as one contiguous array.
+	 * @return     Row-major FlatMatrix with the same elements
+	 * @exception  IllegalStateException The matrix has more elements than an array can hold.
+	 */
+	public FlatMatrix toFlatMatrix() {
+		long count = (long) m * n;
+		if (count > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException(m + "x" + n + " matrix does not fit in one array.");
+		}
+		double[] data = new double[(int) count];
+		copy(0, data, 0, data.length);
+		return new FlatMatrix(data, m, n);
+	}
+
+	/** Multiply with a vector, y = A*x, streaming each row from the mapping.
+	 * @param x    Vector with n entries
+	 * @param y    Output with m entries, must not be x
+	 */
+	public void apply(double[] x, double[] y) {
+		if (x.length != n || y.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		long e = 0;
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			int j = 0;
+			while (j < n) {
+				DoubleBuffer chunk = chunks[(int) (e >>> CHUNK_SHIFT)];
+				int p = (int) (e & CHUNK_MASK);
+				int count = (int) Math.min(n - j, CHUNK_DOUBLES - p);
+				for (int k = 0; k < count; k++) {
+					sum += chunk.get(p + k) * x[j + k];
+				}
+				j += count;
+				e += count;
+			}
+			y[i] = sum;
+		}
+	}
+
+	/** Release the file. The mapped pages are unmapped once the view is
+	 * no longer referenced.
+	 * @exception  IOException The channel could not be closed.
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	/** Bulk copy count elements starting at element e, across chunk boundaries. */
+	private void copy(long e, double[] dst, int offset, int count) {
+		while (count > 0) {
+			DoubleBuffer chunk = chunks[(int) (e >>> CHUNK_SHIFT)].duplicate();
+			int p = (int) (e & CHUNK_MASK);
+			int len = (int) Math.min(count, CHUNK_DOUBLES - p);
+			chunk.position(p);
+			chunk.get(dst, offset, len);
+			e += len;
+			offset += len;
+			count -= len;
+		}
+	}
+}
@@ -4,19 +4,15 @@ public class MathOperations {
     public static Matrix generatePascalMatrix(int n) {
         double[][] toReturn = new double[n][n];
 
+        // P[i][j] = (i+j)! / (i! j!), built with Pascal's rule so the
+        // entries stay exact well past where int factorials overflow.
         for (int i = 0; i < toReturn.length; i++) {
             for (int j = 0; j < toReturn[i].length; j++) {
                 if (i == 0 || j == 0 ){
                     toReturn[i][j] = 1;
                 }
                 else {
-                    double numerator = MathOperations.factorial((i)+(j));
-
-                    double mFactorial = MathOperations.factorial(i);
-                    double nFactorial = MathOperations.factorial(j);
-                    double denominator = mFactorial * nFactorial;
-
-                    toReturn[i][j] = numerator / denominator;
+                    toReturn[i][j] = toReturn[i - 1][j] + toReturn[i][j - 1];
                 }
 
             }
@@ -46,6 +42,15 @@ public class MathOperations {
         return sum;
     }
 
+    /**
+     * Factors a square matrix as P*A = L*U with partial pivoting
+     * @param matrix square matrix to factor, left unchanged
+     * @return the factorization, reusable for determinants and solves
+     */
+    public static LUDecomposition LU(Matrix matrix) {
+        return new LUDecomposition(matrix);
+    }
+
     public static Matrix givens(Matrix m) {
         double[] x = new double[2];
 
@@ -97,25 +102,37 @@ public class MathOperations {
         }
     }
 
-    public static Matrix QTgivens(Matrix a) {
-        double[][] identityArray = new double[a.getRowDimension()][a.getRowDimension()];
-        Matrix[] qs = givensOrthogonals(a);
-        for (int i = 0; i < a.getRowDimension() ; i++) {
-            for (int t = 0; t < a.getRowDimension(); t++) {
-                identityArray[i][t] = 0;
-                if (i == t) {
-                    identityArray[i][t] = 1;
-                }
-            }
-        }
+    /**
+     * Factors a matrix once as A = Q*R using Givens rotations
+     * @param matrix matrix to factor, left unchanged
+     * @return the factorization, with Q, R and the error computed on demand
+     */
+    public static QRDecomposition QRgivens(Matrix matrix) {
+        return new GivensQR(matrix);
+    }
 
-        Matrix qT = new Matrix(identityArray);
-        Matrix temp = qT.times(1);
-        for (int index = 0; index < qs.length; index++) {
-            qT = qs[index].multiply(temp);
-            temp = qT.times(1);
-        }
-        return qT;
+    /**
+     * Factors a matrix once as A = Q*R using Householder reflections
+     * @param matrix matrix to factor, left unchanged
+     * @return the factorization, with Q, R and the error computed on demand
+     */
+    public static QRDecomposition QRhouseholder(Matrix matrix) {
+        return new HouseholderQR(matrix);
+    }
+
+    /**
+     * All eigenvalues and eigenvectors of a square matrix.
+     * Symmetric matrices use Householder tridiagonalization and the implicit
+     * QL algorithm, others Hessenberg reduction and Francis double-shift QR.
+     * @param matrix square matrix, left unchanged
+     * @return the decomposition, A*V = V*D, and A = V*D*V' when A is symmetric
+     */
+    public static EigenvalueDecomposition eig(Matrix matrix) {
+        return new EigenvalueDecomposition(matrix);
+    }
+
+    public static Matrix QTgivens(Matrix a) {
+        return new GivensQR(a).getQT();
     }
 
     public static Matrix[] givensOrthogonals(Matrix matrix) {
@@ -140,17 +157,16 @@ public class MathOperations {
     }
 
     public static Matrix Qgivens(Matrix m) {
-        return QTgivens(m).transpose();
+        return new GivensQR(m).getQ();
     }
 
     public static Matrix Rgivens(Matrix a) {
-        return QTgivens(a).multiply(a);
+        return new GivensQR(a).getR();
     }
 
     public static Matrix confirmQRgivens(Matrix matrix) {
-        Matrix q = Qgivens(matrix);
-        Matrix r = Rgivens(matrix);
-        Matrix toReturn = q.multiply(r);
+        QRDecomposition qr = QRgivens(matrix);
+        Matrix toReturn = qr.getQ().multiply(qr.getR());
         return toReturn;
     }
 
@@ -201,13 +217,17 @@ public class MathOperations {
 
         xNorm = Math.sqrt(xSum);
 
-        v[j] = x[j] + xNorm;
+        // Reflect x onto -sign(x_j)||x|| e_j so v never cancels to zero
+        v[j] = x[j] >= 0 ? x[j] + xNorm : x[j] - xNorm;
         vSum = 0;
 
         for (i = j; i < matrix.getRowDimension(); i++) {
             vSum += Math.pow(v[i], 2);
         }
         vNorm = Math.sqrt(vSum);
+        if (vNorm == 0) {
+            return identity;
+        }
         for (i = j; i < matrix.getRowDimension(); i++) {
             u[i] = v[i]/vNorm;
         }
@@ -220,6 +240,99 @@ public class MathOperations {
         return uVec.multiply(uVecT).times(-2).plus(identity);
     }
 
+    /**
+     * Solves U*x = b by back substitution. Only the leading n x n block of U
+     * is used, so the R from a QR factorization of a tall matrix can be passed
+     * directly.
+     * @param U upper triangular matrix with at least as many rows as columns
+     * @param b right hand side, at least n entries
+     * @return x with n entries, where n is the column dimension of U
+     */
+    public static double[] backSubstitution(Matrix U, double[] b) {
+        int n = U.getColumnDimension();
+        if (U.getRowDimension() < n || b.length < n) {
+            throw new IllegalArgumentException("Matrix and vector must be same length");
+        }
+        double[][] u = U.getArray();
+        double[] x = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            double[] row = u[i];
+            if (row[i] == 0) {
+                throw new ArithmeticException("Matrix is singular.");
+            }
+            double sum = b[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= row[k] * x[k];
+            }
+            x[i] = sum / row[i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves U*X = B by back substitution for every column of B at once.
+     * Rows of X are updated as whole rows, so each entry of U is read once
+     * for the entire block. Only the leading n x n block of U is used.
+     * @param U upper triangular matrix with at least as many rows as columns
+     * @param B right hand sides, at least n rows; the leading n rows are overwritten
+     * @return X, n x k where k is the number of columns of B
+     */
+    public static Matrix backSubstitution(Matrix U, double[][] B) {
+        int n = U.getColumnDimension();
+        if (U.getRowDimension() < n || B.length < n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int nx = n == 0 ? 0 : B[0].length;
+        double[][] u = U.getArray();
+        for (int i = n - 1; i >= 0; i--) {
+            double[] row = u[i];
+            if (row[i] == 0) {
+                throw new ArithmeticException("Matrix is singular.");
+            }
+            double[] xi = B[i];
+            for (int k = i + 1; k < n; k++) {
+                double uik = row[k];
+                if (uik != 0) {
+                    double[] xk = B[k];
+                    for (int j = 0; j < nx; j++) {
+                        xi[j] -= uik * xk[j];
+                    }
+                }
+            }
+            double d = 1.0 / row[i];
+            for (int j = 0; j < nx; j++) {
+                xi[j] *= d;
+            }
+        }
+        double[][] X = new double[n][];
+        for (int i = 0; i < n; i++) {
+            X[i] = B[i].length == nx ? B[i] : java.util.Arrays.copyOf(B[i], nx);
+        }
+        return new Matrix(X, n, nx);
+    }
+
+    /**
+     * Solves A*X = B using the pivoted LU factorization of A, factoring
+     * once and solving for all columns of B together
+     * @param A square matrix
+     * @param b n x k matrix of right hand sides
+     * @return X as an n x k matrix
+     */
+    public static Matrix solveLU(Matrix A, Matrix b) {
+        return LU(A).solve(b);
+    }
+
+    /**
+     * Solves A*X = B using the Householder QR factorization of A,
+     * X = R^-1 (Q^T B) by back substitution, for all columns of B together
+     * @param A square matrix
+     * @param b n x k matrix of right hand sides
+     * @return X as an n x k matrix
+     */
+    public static Matrix solveQR(Matrix A, Matrix b) {
+        return QRhouseholder(A).solve(b);
+    }
+
     public static Matrix applyCramersRule(Matrix A, Matrix b, int columnToAdjust) {
         double[][] adjustedMatrix = A.getArrayCopy();
         for (int row = 0; row < A.getRowDimension(); row++) {
@@ -235,24 +348,7 @@ public class MathOperations {
     }
 
     public static Matrix QThouseholder(Matrix a) {
-        Matrix[] qs = householderOrthogonals(a);
-        double[][] identityArray = new double[a.getRowDimension()][a.getRowDimension()];
-        for (int i = 0; i < a.getRowDimension() ; i++) {
-            for (int t = 0; t < a.getRowDimension(); t++) {
-                identityArray[i][t] = 0;
-                if (i == t) {
-                    identityArray[i][t] = 1;
-                }
-            }
-        }
-
-        Matrix qT = new Matrix(identityArray);
-        Matrix temp = qT.times(1);
-        for (int index = 0; index < qs.length; index++) {
-            qT = qs[index].multiply(temp);
-            temp = qT.times(1);
-        }
-        return qT;
+        return new HouseholderQR(a).getQT();
     }
 
     public static Matrix[] householderOrthogonals(Matrix matrix) {
@@ -269,13 +365,11 @@ public class MathOperations {
     }
 
     public static Matrix Rhouseholder(Matrix a) {
-        Matrix qT = QThouseholder(a);
-        Matrix r = qT.multiply(a);
-        return r;
+        return new HouseholderQR(a).getR();
     }
 
     public static Matrix Qhouseholder(Matrix matrix) {
-        return QThouseholder(matrix).transpose();
+        return new HouseholderQR(matrix).getQ();
     }
 
     public static double QRError(Matrix QR, Matrix A) {
@@ -288,9 +382,8 @@ public class MathOperations {
         return PXMinusB.maxNorm();
     }
     public static Matrix confirmQRhouseholder(Matrix matrix) {
-        Matrix q = Qhouseholder(matrix);
-        Matrix r = Rhouseholder(matrix);
-        Matrix toReturn = q.multiply(r);
+        QRDecomposition qr = QRhouseholder(matrix);
+        Matrix toReturn = qr.getQ().multiply(qr.getR());
         return toReturn;
     }
 
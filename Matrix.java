@@ -1,10 +1,11 @@
 import java.io.BufferedReader;
 import java.io.PrintWriter;
-import java.io.StreamTokenizer;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
@@ -14,7 +15,7 @@ import java.util.Locale;
  * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
  * @version 1.0
  */
-public class Matrix implements Cloneable, java.io.Serializable  {
+public class Matrix implements Cloneable, java.io.Serializable, LinearOperator  {
 
 	/* -----------------------------------------------------------------------
 	 * This code is from http://math.nist.gov/javanumerics/jama/
@@ -469,12 +470,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 
 	public Matrix transpose () {
 		Matrix X = new Matrix(n,m);
-		double[][] C = X.getArray();
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C[j][i] = A[i][j];
+		final double[][] C = X.getArray();
+		forEachTile(m, n, 1, 1, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					C[j][i] = A[i][j];
+				}
 			}
-		}
+		});
 		return X;
 	}
 	/**  Unary minus
@@ -483,12 +486,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 
 	public Matrix uminus () {
 		Matrix X = new Matrix(m,n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C[i][j] = -A[i][j];
+		final double[][] C = X.getArray();
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					C[i][j] = -A[i][j];
+				}
 			}
-		}
+		});
 		return X;
 	}
 
@@ -500,12 +505,15 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	public Matrix plus (Matrix B) {
 		checkMatrixDimensions(B);
 		Matrix X = new Matrix(m,n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C[i][j] = A[i][j] + B.A[i][j];
+		final double[][] C = X.getArray();
+		final double[][] BA = B.A;
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					C[i][j] = A[i][j] + BA[i][j];
+				}
 			}
-		}
+		});
 		return X;
 	}
 
@@ -516,11 +524,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 
 	public Matrix plusEquals (Matrix B) {
 		checkMatrixDimensions(B);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				A[i][j] = A[i][j] + B.A[i][j];
+		final double[][] BA = B.A;
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					A[i][j] = A[i][j] + BA[i][j];
+				}
 			}
-		}
+		});
 		return this;
 	}
 
@@ -532,12 +543,15 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	public Matrix minus (Matrix B) {
 		checkMatrixDimensions(B);
 		Matrix X = new Matrix(m,n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C[i][j] = A[i][j] - B.A[i][j];
+		final double[][] C = X.getArray();
+		final double[][] BA = B.A;
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					C[i][j] = A[i][j] - BA[i][j];
+				}
 			}
-		}
+		});
 		return X;
 	}
 
@@ -548,11 +562,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 
 	public Matrix minusEquals (Matrix B) {
 		checkMatrixDimensions(B);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				A[i][j] = A[i][j] - B.A[i][j];
+		final double[][] BA = B.A;
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					A[i][j] = A[i][j] - BA[i][j];
+				}
 			}
-		}
+		});
 		return this;
 	}
 
@@ -563,12 +580,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 
 	public Matrix times (double s) {
 		Matrix X = new Matrix(m,n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C[i][j] = s*A[i][j];
+		final double[][] C = X.getArray();
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					C[i][j] = s*A[i][j];
+				}
 			}
-		}
+		});
 		return X;
 	}
 
@@ -578,11 +597,13 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	 */
 
 	public Matrix timesEquals (double s) {
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				A[i][j] = s*A[i][j];
+		forEachTile(m, n, (i0, i1, j0, j1) -> {
+			for (int i = i0; i < i1; i++) {
+				for (int j = j0; j < j1; j++) {
+					A[i][j] = s*A[i][j];
+				}
 			}
-		}
+		});
 		return this;
 	}
 
@@ -724,56 +745,14 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	/** Read a matrix from a stream.  The format is the same the print method,
 	 * so printed matrices can be read back in (provided they were printed using
 	 * US Locale).  Elements are separated by
-	 * whitespace, all the elements for each row appear on a single line,
+	 * whitespace or commas, all the elements for each row appear on a single line,
 	 * the last row is followed by a blank line.
 	 * @param input the input stream.
+	 * @see MatrixParser#readMatrix()
 	 */
 
 	public static Matrix read (BufferedReader input) throws java.io.IOException {
-		StreamTokenizer tokenizer= new StreamTokenizer(input);
-
-		// Although StreamTokenizer will parse numbers, it doesn't recognize
-		// scientific notation (E or D); however, Double.valueOf does.
-		// The strategy here is to disable StreamTokenizer's number parsing.
-		// We'll only get whitespace delimited words, EOL's and EOF's.
-		// These words should all be numbers, for Double.valueOf to parse.
-
-		tokenizer.resetSyntax();
-		tokenizer.wordChars(0,255);
-		tokenizer.whitespaceChars(0, ' ');
-		tokenizer.eolIsSignificant(true);
-		java.util.Vector<Double> vD = new java.util.Vector<Double>();
-
-		// Ignore initial empty lines
-		while (tokenizer.nextToken() == StreamTokenizer.TT_EOL);
-		if (tokenizer.ttype == StreamTokenizer.TT_EOF)
-			throw new java.io.IOException("Unexpected EOF on matrix read.");
-		do {
-			vD.addElement(Double.valueOf(tokenizer.sval)); // Read & store 1st row.
-		} while (tokenizer.nextToken() == StreamTokenizer.TT_WORD);
-
-		int n = vD.size();  // Now we've got the number of columns!
-		double row[] = new double[n];
-		for (int j=0; j<n; j++)  // extract the elements of the 1st row.
-			row[j]=vD.elementAt(j).doubleValue();
-		java.util.Vector<double[]> v = new java.util.Vector<double[]>();
-		v.addElement(row);  // Start storing rows instead of columns.
-		while (tokenizer.nextToken() == StreamTokenizer.TT_WORD) {
-			// While non-empty lines
-			v.addElement(row = new double[n]);
-			int j = 0;
-			do {
-				if (j >= n) throw new java.io.IOException
-						("Row " + v.size() + " is too long.");
-				row[j++] = Double.valueOf(tokenizer.sval).doubleValue();
-			} while (tokenizer.nextToken() == StreamTokenizer.TT_WORD);
-			if (j < n) throw new java.io.IOException
-					("Row " + v.size() + " is too short.");
-		}
-		int m = v.size();  // Now we've got the number of rows.
-		double[][] A = new double[m][];
-		v.copyInto(A);  // copy the rows out of the vector
-		return new Matrix(A);
+		return new MatrixParser(input).readMatrix();
 	}
 
 	/* ------------------------
@@ -813,6 +792,47 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	   Public Methods
 	 * ------------------------ */
 
+	/**
+	 * Sets the pool used to run matrix arithmetic in parallel. Products and
+	 * element-wise operations are split into row/column tiles and scheduled
+	 * on the pool once they exceed the parallel threshold.
+	 * @param pool Pool to use, or null to run everything on the calling thread
+	 */
+	public static void setParallelPool(ForkJoinPool pool) {
+		parallelPool = pool;
+	}
+
+	/**
+	 * Gets the pool used to run matrix arithmetic in parallel
+	 * @return The pool, or null if parallel execution is disabled
+	 */
+	public static ForkJoinPool getParallelPool() {
+		return parallelPool;
+	}
+
+	/**
+	 * Sets the number of result elements below which an operation stays
+	 * sequential. A tile of the result is split further only while it holds
+	 * more elements than this, and a product is never split into tiles
+	 * smaller than MIN_TILE_ROWS x MIN_TILE_COLS, so the cache blocking of
+	 * the multiply kernel is kept.
+	 * @param threshold Minimum number of result elements per tile before it is split further
+	 */
+	public static void setParallelThreshold(long threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Parallel threshold must be positive.");
+		}
+		parallelThreshold = threshold;
+	}
+
+	/**
+	 * Gets the number of result elements below which an operation stays sequential
+	 * @return The parallel threshold
+	 */
+	public static long getParallelThreshold() {
+		return parallelThreshold;
+	}
+
 	/**
 	 * Multiply two matrices, C = A * B
 	 * @param B Second matrix
@@ -821,12 +841,7 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	public Matrix multiply(Matrix B) {
 		checkMultiplyDimensions(B);
 		Matrix X = new Matrix(this.m, B.n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < this.m; i++) {
-			for (int j = 0; j < B.n; j++) {
-				C[i][j] = dotProduct(this.getRowVector(i), B.getColumnVector(j));
-			}
-		}
+		multiplyParallel(this.A, B.A, X.A, this.m, this.n, B.n);
 		return X;
 	}
 
@@ -838,12 +853,7 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	public Matrix multiplyEquals(Matrix B) {
 		checkMultiplyDimensions(B);
 		Matrix X = new Matrix(this.m, B.n);
-		double[][] C = X.getArray();
-		for (int i = 0; i < this.m; i++) {
-			for (int j = 0; j < B.n; j++) {
-				C[i][j] = dotProduct(this.getRowVector(i), B.getColumnVector(j));
-			}
-		}
+		multiplyParallel(this.A, B.A, X.A, this.m, this.n, B.n);
 		this.A = X.getArray();
 		this.m = X.m;
 		this.n = X.n;
@@ -865,46 +875,41 @@ public class Matrix implements Cloneable, java.io.Serializable  {
 	}
 
 	/**
-	 * Gets determinant of matrix
+	 * Multiply with a vector into an existing array, y = A*x, walking each
+	 * row of A once without allocating
+	 * @param x Vector with n entries
+	 * @param y Output with m entries, must not be x
+	 */
+	public void apply(double[] x, double[] y) {
+		if (x.length != n || y.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		for (int i = 0; i < m; i++) {
+			double[] row = A[i];
+			double sum = 0;
+			for (int j = 0; j < n; j++) {
+				sum += row[j] * x[j];
+			}
+			y[i] = sum;
+		}
+	}
+
+	/**
+	 * Gets determinant of matrix from its pivoted LU decomposition
 	 * @return determinant of the matrix
+	 * @see LUDecomposition#det()
 	 */
 	public double determinant() throws IllegalArgumentException {
 		if (!(m == n)) {
 			throw new IllegalArgumentException("Determinents for square matrices only");
 		}
-		double ans = 0;
 		if (m == 1) {
-			ans = A[m][n];
+			return A[0][0];
 		}
-		if (n == 2) {
-			ans = ((A[0][0] * A[1][1]) - (A[0][1] * A[1][0]));
-		} else {
-			for (int i = 0; i < 1; i++) {
-				double[][] det = new double[m-1][n-1];
-				double scal = 0;
-				for (int j = 0; j < n; j++) {
-					scal = A[i][j];
-					int mcount = 0;
-					for (int k = 1; k < m; k++) {
-						int ncount = 0;
-						for (int l = 0; l < n; l++) {
-							if (!(l == j)) {
-								det[mcount][ncount] = A[k][l];
-								ncount += 1;
-							}
-						}
-						mcount += 1;
-					}
-					Matrix step = new Matrix(det);
-					double neg = 1;
-					if (j%2 == 1) {
-						neg = -1;
-					}
-					ans = ans + (neg*(step.determinant() * scal));
-				}
-			}
+		if (m == 2) {
+			return ((A[0][0] * A[1][1]) - (A[0][1] * A[1][0]));
 		}
-		return ans;
+		return new LUDecomposition(this).det();
 	}
 
 	/**
@@ -924,6 +929,171 @@ public class Matrix implements Cloneable, java.io.Serializable  {
     /* ------------------------
        Private Methods
      * ------------------------ */
+
+	/** Pool for parallel arithmetic, null when running sequentially. */
+	private static volatile ForkJoinPool parallelPool = null;
+
+	/** Result elements below which a tile is not split further. */
+	private static volatile long parallelThreshold = 1L << 15;
+
+	/** Body of an operation over the tile [i0,i1) x [j0,j1) of the result. */
+	interface TileOperation {
+		void apply(int i0, int i1, int j0, int j1);
+	}
+
+	/**
+	 * Splits a tile along its longer side until the number of elements in
+	 * each piece drops below the threshold, then runs the operation on the
+	 * piece. A side is only halved while both halves stay at least the
+	 * minimum rows or columns.
+	 */
+	private static final class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1;
+		private final TileOperation op;
+		private final int i0, i1, j0, j1;
+		private final int minRows, minCols;
+		private final long threshold;
+
+		TileTask(TileOperation op, int i0, int i1, int j0, int j1, int minRows, int minCols, long threshold) {
+			this.op = op;
+			this.i0 = i0;
+			this.i1 = i1;
+			this.j0 = j0;
+			this.j1 = j1;
+			this.minRows = minRows;
+			this.minCols = minCols;
+			this.threshold = threshold;
+		}
+
+		protected void compute() {
+			int rows = i1 - i0;
+			int cols = j1 - j0;
+			boolean splitRows = rows / 2 >= minRows;
+			boolean splitCols = cols / 2 >= minCols;
+			if ((long) rows * cols <= threshold || (!splitRows && !splitCols)) {
+				op.apply(i0, i1, j0, j1);
+			} else if (splitRows && (rows >= cols || !splitCols)) {
+				int mid = (i0 + i1) >>> 1;
+				invokeAll(new TileTask(op, i0, mid, j0, j1, minRows, minCols, threshold),
+						new TileTask(op, mid, i1, j0, j1, minRows, minCols, threshold));
+			} else {
+				int mid = (j0 + j1) >>> 1;
+				invokeAll(new TileTask(op, i0, i1, j0, mid, minRows, minCols, threshold),
+						new TileTask(op, i0, i1, mid, j1, minRows, minCols, threshold));
+			}
+		}
+	}
+
+	/**
+	 * Runs an operation over every element of an m x n result, on the
+	 * parallel pool if one is set and the result is above the threshold.
+	 * @param m Rows of the result
+	 * @param n Columns of the result
+	 * @param minRows Fewest rows in a tile that is split off
+	 * @param minCols Fewest columns in a tile that is split off
+	 * @param op Operation to run over each tile
+	 */
+	private static void forEachTile(int m, int n, int minRows, int minCols, TileOperation op) {
+		ForkJoinPool pool = parallelPool;
+		long threshold = parallelThreshold;
+		if (pool == null || (long) m * n <= threshold) {
+			op.apply(0, m, 0, n);
+		} else {
+			pool.invoke(new TileTask(op, 0, m, 0, n, minRows, minCols, threshold));
+		}
+	}
+
+	/**
+	 * Runs an element-wise operation over an m x n result, split into
+	 * bands of whole rows.
+	 */
+	private static void forEachTile(int m, int n, TileOperation op) {
+		forEachTile(m, n, 1, Integer.MAX_VALUE, op);
+	}
+
+	/**
+	 * Runs a product over the tiles of an m x n result. Tiles are at least
+	 * MIN_TILE_ROWS x MIN_TILE_COLS unless the result itself is smaller.
+	 */
+	static void forEachMultiplyTile(int m, int n, TileOperation op) {
+		forEachTile(m, n, MIN_TILE_ROWS, MIN_TILE_COLS, op);
+	}
+
+	/**
+	 * Computes C = A * B, splitting C into tiles on the parallel pool when
+	 * the product is large enough.
+	 */
+	private static void multiplyParallel(final double[][] A, final double[][] B, final double[][] C,
+			int mDim, final int kDim, int nDim) {
+		forEachMultiplyTile(mDim, nDim, (i0, i1, j0, j1) ->
+				multiplyKernel(A, B, C, i0, i1, j0, j1, kDim));
+	}
+
+	/** Depth of a tile of B (rows of B / columns of A) kept in cache. */
+	private static final int BLOCK_K = 64;
+
+	/** Width of a tile of B (columns of B and C) kept in cache. */
+	private static final int BLOCK_J = 256;
+
+	/** Fewest rows of C in a tile of a parallel product, several BLOCK_K deep. */
+	static final int MIN_TILE_ROWS = 2 * BLOCK_K;
+
+	/** Fewest columns of C in a tile of a parallel product, a full BLOCK_J tile. */
+	static final int MIN_TILE_COLS = BLOCK_J;
+
+	/**
+	 * Accumulates C(i0:i1-1,j0:j1-1) += A(i0:i1-1,:) * B(:,j0:j1-1) with a
+	 * tiled i-k-j loop.
+	 * A BLOCK_K x BLOCK_J tile of B is reused by every row of A before moving
+	 * on, and four rows of C are updated per pass over a row of the tile so
+	 * each B(k,j) is loaded once for four multiply-adds. Rows of every array
+	 * are walked with unit stride and nothing is allocated.
+	 * @param A Left operand, at least i1 rows of length kDim
+	 * @param B Right operand, kDim rows of at least j1 columns
+	 * @param C Result, at least i1 rows of at least j1 columns
+	 * @param i0 First row of C to compute
+	 * @param i1 One past the last row of C to compute
+	 * @param j0 First column of C to compute
+	 * @param j1 One past the last column of C to compute
+	 * @param kDim Inner dimension
+	 */
+	private static void multiplyKernel(double[][] A, double[][] B, double[][] C,
+			int i0, int i1, int j0, int j1, int kDim) {
+		for (int kk = 0; kk < kDim; kk += BLOCK_K) {
+			int kEnd = Math.min(kk + BLOCK_K, kDim);
+			for (int jj = j0; jj < j1; jj += BLOCK_J) {
+				int jEnd = Math.min(jj + BLOCK_J, j1);
+				int i = i0;
+				for (; i + 3 < i1; i += 4) {
+					double[] a0 = A[i], a1 = A[i+1], a2 = A[i+2], a3 = A[i+3];
+					double[] c0 = C[i], c1 = C[i+1], c2 = C[i+2], c3 = C[i+3];
+					for (int k = kk; k < kEnd; k++) {
+						double s0 = a0[k], s1 = a1[k], s2 = a2[k], s3 = a3[k];
+						double[] bk = B[k];
+						for (int j = jj; j < jEnd; j++) {
+							double b = bk[j];
+							c0[j] += s0 * b;
+							c1[j] += s1 * b;
+							c2[j] += s2 * b;
+							c3[j] += s3 * b;
+						}
+					}
+				}
+				for (; i < i1; i++) {
+					double[] ai = A[i];
+					double[] ci = C[i];
+					for (int k = kk; k < kEnd; k++) {
+						double s = ai[k];
+						double[] bk = B[k];
+						for (int j = jj; j < jEnd; j++) {
+							ci[j] += s * bk[j];
+						}
+					}
+				}
+			}
+		}
+	}
+
 	private void checkMultiplyDimensions(Matrix B) {
 		if (this.n != B.m) {
 			throw new IllegalArgumentException("First matrix n must equal second matrix m.");
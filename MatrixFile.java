@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary matrix files.
+ * A file is a fixed 32 byte header followed by the elements as
+ * little-endian IEEE doubles packed by rows, so element (i,j) is at byte
+ * HEADER_BYTES + 8*(i*n + j). The header, also little-endian, holds
+ * <pre>
+ *   int  magic    0x54414D4A, the bytes "JMAT"
+ *   int  version  1
+ *   long m        number of rows
+ *   long n        number of columns
+ *   long reserved 0
+ * </pre>
+ * Nothing is parsed: a file is read with bulk copies out of memory-mapped
+ * buffers, or opened with map as a MappedMatrix that reads straight from the
+ * page cache and needs no heap copy at all.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class MatrixFile {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Bytes before the first element. */
+	public static final int HEADER_BYTES = 32;
+
+	/** "JMAT" read as a little-endian int. */
+	static final int MAGIC = 0x54414D4A;
+
+	/** Format version written and accepted. */
+	static final int VERSION = 1;
+
+	/** Size of the buffer used to stage elements while writing. */
+	private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+	private MatrixFile() {
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Write a matrix to a file, replacing it if it exists
+	 * @param A    Matrix to write, with at least one row and column
+	 * @param file Destination
+	 * @exception  IOException The file could not be written.
+	 * @exception  IllegalArgumentException A is empty.
+	 */
+	public static void write(Matrix A, Path file) throws IOException {
+		int m = A.getRowDimension();
+		int n = A.getColumnDimension();
+		if (m == 0 || n == 0) {
+			throw new IllegalArgumentException("Matrix file needs at least one row and one column.");
+		}
+		double[][] a = A.getArray();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putLong(m).putLong(n).putLong(0);
+			header.flip();
+			writeFully(channel, header);
+
+			// Rows are staged through one direct buffer and written in large blocks
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			DoubleBuffer doubles = buffer.asDoubleBuffer();
+			for (int i = 0; i < m; i++) {
+				double[] row = a[i];
+				int j = 0;
+				while (j < n) {
+					if (!doubles.hasRemaining()) {
+						writeStaged(channel, buffer, doubles);
+					}
+					int count = Math.min(n - j, doubles.remaining());
+					doubles.put(row, j, count);
+					j += count;
+				}
+			}
+			writeStaged(channel, buffer, doubles);
+		}
+	}
+
+	/** Read a whole file into a new Matrix. The header is checked as by map,
+	 * so a corrupt or truncated file fails before anything is allocated.
+	 * @param file Source
+	 * @return     Matrix holding a copy of the elements
+	 * @exception  IOException The file could not be read or is not a matrix file.
+	 */
+	public static Matrix read(Path file) throws IOException {
+		try (MappedMatrix mapped = map(file)) {
+			return mapped.toMatrix();
+		}
+	}
+
+	/** Read a whole file into a new contiguous FlatMatrix. The elements are
+	 * copied from the mapping in bulk straight into the backing array.
+	 * @param file Source
+	 * @return     Row-major FlatMatrix holding a copy of the elements
+	 * @exception  IOException The file could not be read or is not a matrix file.
+	 * @exception  IllegalStateException The matrix has more elements than an array can hold.
+	 */
+	public static FlatMatrix readFlat(Path file) throws IOException {
+		try (MappedMatrix mapped = map(file)) {
+			return mapped.toFlatMatrix();
+		}
+	}
+
+	/** Open a file as a read-only matrix backed by memory-mapped buffers.
+	 * Only the header is read; elements are paged in as they are touched.
+	 * The view stays usable until it is closed.
+	 * @param file Source
+	 * @return     Read-only view of the file
+	 * @exception  IOException The file could not be opened or is not a matrix file.
+	 */
+	public static MappedMatrix map(Path file) throws IOException {
+		return new MappedMatrix(file);
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	/**
+	 * Reads and checks the header. The dimensions must be positive, fit in
+	 * an int and describe no more doubles than the file holds after the
+	 * header, so the element count and byte offsets derived from them
+	 * cannot overflow.
+	 * @param channel Open file, read from position 0
+	 * @return        {m, n}
+	 * @exception     IOException The file is not a matrix file or is shorter than its header says.
+	 */
+	static long[] readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException("Unexpected EOF on matrix header.");
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not a matrix file.");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported matrix file version " + version + ".");
+		}
+		long rows = header.getLong();
+		long cols = header.getLong();
+		if (rows <= 0 || cols <= 0 || rows > Integer.MAX_VALUE || cols > Integer.MAX_VALUE) {
+			throw new IOException("Matrix dimensions " + rows + "x" + cols + " out of range.");
+		}
+		// Both fit in an int, so the product cannot overflow; it is compared
+		// with the doubles present rather than scaled up to bytes
+		if (rows * cols > (channel.size() - HEADER_BYTES) / 8) {
+			throw new IOException("Matrix file is shorter than its " + rows + "x" + cols + " header says.");
+		}
+		return new long[] {rows, cols};
+	}
+
+	/** Write the doubles staged in a view of buffer and empty the view. */
+	private static void writeStaged(FileChannel channel, ByteBuffer buffer, DoubleBuffer doubles)
+			throws IOException {
+		buffer.clear();
+		buffer.limit(8 * doubles.position());
+		writeFully(channel, buffer);
+		doubles.clear();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
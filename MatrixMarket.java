@@ -0,0 +1,318 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Matrix Market exchange format, http://math.nist.gov/MatrixMarket/formats.html
+ * Reads real, integer and pattern matrices in coordinate or array layout
+ * with general, symmetric or skew-symmetric storage, into either a dense
+ * Matrix or a SparseMatrix. Input is streamed through MatrixParser: a dense
+ * result is filled entry by entry and a sparse one is built from coordinate
+ * triplets, so a sparse file is never expanded to a dense array.
+ * Writes a Matrix as a real general array and a SparseMatrix as a real
+ * general coordinate file.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class MatrixMarket {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	private static final String BANNER = "%%MatrixMarket";
+
+	/** Parsed header line and size line. */
+	private final MatrixParser parser;
+	private final boolean coordinate;
+	private final boolean pattern;
+	private final boolean symmetric;
+	private final boolean skew;
+	private final int m, n;
+	private final long entries;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/** Read the header and size line, leaving the parser at the first entry. */
+	private MatrixMarket(InputStream in) throws IOException {
+		parser = new MatrixParser(in);
+		String banner = parser.nextWord();
+		if (!BANNER.equals(banner)) {
+			throw new IOException("Missing " + BANNER + " header.");
+		}
+		String object = lower(parser.nextWord());
+		String format = lower(parser.nextWord());
+		String field = lower(parser.nextWord());
+		String symmetry = lower(parser.nextWord());
+		if (!"matrix".equals(object)) {
+			throw new IOException("Unsupported Matrix Market object " + object + ".");
+		}
+		if ("coordinate".equals(format)) {
+			coordinate = true;
+		} else if ("array".equals(format)) {
+			coordinate = false;
+		} else {
+			throw new IOException("Unsupported Matrix Market format " + format + ".");
+		}
+		if (!"real".equals(field) && !"integer".equals(field) && !"pattern".equals(field)) {
+			throw new IOException("Unsupported Matrix Market field " + field + ".");
+		}
+		pattern = "pattern".equals(field);
+		if (pattern && !coordinate) {
+			throw new IOException("Pattern matrices must use coordinate format.");
+		}
+		if ("general".equals(symmetry)) {
+			symmetric = false;
+			skew = false;
+		} else if ("symmetric".equals(symmetry)) {
+			symmetric = true;
+			skew = false;
+		} else if ("skew-symmetric".equals(symmetry)) {
+			symmetric = true;
+			skew = true;
+		} else {
+			throw new IOException("Unsupported Matrix Market symmetry " + symmetry + ".");
+		}
+		parser.nextLine();
+
+		// Comment lines, then the size line
+		while (true) {
+			String word = parser.nextWord();
+			if (word == null) {
+				if (!parser.nextLine()) {
+					throw new IOException("Unexpected EOF before Matrix Market size line.");
+				}
+			} else if (word.startsWith("%")) {
+				parser.nextLine();
+			} else {
+				try {
+					m = checkDimension(Long.parseLong(word));
+				} catch (NumberFormatException e) {
+					throw new IOException("Could not parse \"" + word + "\" as a matrix dimension.");
+				}
+				break;
+			}
+		}
+		n = checkDimension(parser.nextLong());
+		if (coordinate) {
+			entries = parser.nextLong();
+		} else if (symmetric) {
+			entries = skew ? (long) n * (n - 1) / 2 : (long) n * (n + 1) / 2;
+		} else {
+			entries = (long) m * n;
+		}
+		if (symmetric && m != n) {
+			throw new IOException("Symmetric matrices must be square.");
+		}
+		if (entries < 0) {
+			throw new IOException("Negative number of entries.");
+		}
+		parser.nextLine();
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Read a Matrix Market file into a dense matrix
+	 * @param in   Source, read in blocks and not closed
+	 * @return     The matrix, with both triangles filled in for symmetric storage
+	 * @exception  IOException The input is not a supported Matrix Market matrix.
+	 */
+	public static Matrix readDense(InputStream in) throws IOException {
+		MatrixMarket mm = new MatrixMarket(in);
+		Matrix X = new Matrix(mm.m, mm.n);
+		double[][] A = X.getArray();
+		if (mm.coordinate) {
+			for (long k = 0; k < mm.entries; k++) {
+				mm.nextEntry();
+				int i = mm.nextIndex(mm.m);
+				int j = mm.nextIndex(mm.n);
+				double v = mm.nextValue();
+				A[i][j] += v;
+				if (mm.symmetric && i != j) {
+					A[j][i] += mm.skew ? -v : v;
+				}
+			}
+		} else {
+			// Column by column; symmetric storage holds only the lower triangle
+			for (int j = 0; j < mm.n; j++) {
+				int first = !mm.symmetric ? 0 : (mm.skew ? j + 1 : j);
+				for (int i = first; i < mm.m; i++) {
+					mm.nextEntry();
+					double v = mm.nextValue();
+					A[i][j] = v;
+					if (mm.symmetric && i != j) {
+						A[j][i] = mm.skew ? -v : v;
+					}
+				}
+			}
+		}
+		return X;
+	}
+
+	/** Read a Matrix Market file into a sparse matrix without a dense copy.
+	 * Coordinate entries, and the nonzeros of an array file, are gathered as
+	 * triplets; duplicate coordinates are summed.
+	 * @param in   Source, read in blocks and not closed
+	 * @return     The CSR matrix, with both triangles stored for symmetric storage
+	 * @exception  IOException The input is not a supported Matrix Market matrix.
+	 */
+	public static SparseMatrix readSparse(InputStream in) throws IOException {
+		MatrixMarket mm = new MatrixMarket(in);
+		long capacity = mm.coordinate ? (mm.symmetric ? 2 * mm.entries : mm.entries) : 16;
+		if (capacity > Integer.MAX_VALUE - 8) {
+			throw new IOException("Too many entries for a sparse matrix.");
+		}
+		Triplets t = new Triplets((int) capacity);
+		if (mm.coordinate) {
+			for (long k = 0; k < mm.entries; k++) {
+				mm.nextEntry();
+				int i = mm.nextIndex(mm.m);
+				int j = mm.nextIndex(mm.n);
+				double v = mm.nextValue();
+				t.add(i, j, v);
+				if (mm.symmetric && i != j) {
+					t.add(j, i, mm.skew ? -v : v);
+				}
+			}
+		} else {
+			for (int j = 0; j < mm.n; j++) {
+				int first = !mm.symmetric ? 0 : (mm.skew ? j + 1 : j);
+				for (int i = first; i < mm.m; i++) {
+					mm.nextEntry();
+					double v = mm.nextValue();
+					if (v != 0) {
+						t.add(i, j, v);
+						if (mm.symmetric && i != j) {
+							t.add(j, i, mm.skew ? -v : v);
+						}
+					}
+				}
+			}
+		}
+		return SparseMatrix.fromTriplets(mm.m, mm.n, t.rows, t.cols, t.vals, t.count);
+	}
+
+	/** Write a dense matrix as a real general array, column by column
+	 * @param A    Matrix to write
+	 * @param out  Destination, flushed but not closed
+	 * @exception  IOException The output could not be written.
+	 */
+	public static void write(Matrix A, OutputStream out) throws IOException {
+		int m = A.getRowDimension();
+		int n = A.getColumnDimension();
+		double[][] a = A.getArray();
+		Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+		w.write(BANNER + " matrix array real general\n");
+		w.write(m + " " + n + "\n");
+		for (int j = 0; j < n; j++) {
+			for (int i = 0; i < m; i++) {
+				w.write(Double.toString(a[i][j]));
+				w.write('\n');
+			}
+		}
+		w.flush();
+	}
+
+	/** Write a sparse matrix as a real general coordinate file, row by row
+	 * @param A    Matrix to write
+	 * @param out  Destination, flushed but not closed
+	 * @exception  IOException The output could not be written.
+	 */
+	public static void write(SparseMatrix A, OutputStream out) throws IOException {
+		int[] rowPtr = A.getRowPointers();
+		int[] colIdx = A.getColumnIndices();
+		double[] values = A.getValues();
+		Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+		w.write(BANNER + " matrix coordinate real general\n");
+		w.write(A.getRowDimension() + " " + A.getColumnDimension() + " " + A.getNonZeros() + "\n");
+		for (int i = 0; i < A.getRowDimension(); i++) {
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				w.write(Integer.toString(i + 1));
+				w.write(' ');
+				w.write(Integer.toString(colIdx[k] + 1));
+				w.write(' ');
+				w.write(Double.toString(values[k]));
+				w.write('\n');
+			}
+		}
+		w.flush();
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	private static String lower(String word) throws IOException {
+		if (word == null) {
+			throw new IOException("Incomplete " + BANNER + " header.");
+		}
+		return word.toLowerCase(java.util.Locale.ROOT);
+	}
+
+	private static int checkDimension(long d) throws IOException {
+		if (d < 0 || d > Integer.MAX_VALUE) {
+			throw new IOException("Matrix dimension " + d + " out of range.");
+		}
+		return (int) d;
+	}
+
+	/** Move to the next entry line, past any blank lines. */
+	private void nextEntry() throws IOException {
+		while (!parser.hasNext()) {
+			if (!parser.nextLine()) {
+				throw new IOException("Unexpected EOF after line " + parser.getLineNumber() + ".");
+			}
+		}
+	}
+
+	/** Next 1-based index on the current entry line, as a 0-based index below bound. */
+	private int nextIndex(int bound) throws IOException {
+		long index = parser.nextLong();
+		if (index < 1 || index > bound) {
+			throw new IOException("Index " + index + " out of range on line " + parser.getLineNumber() + ".");
+		}
+		return (int) index - 1;
+	}
+
+	/** Value ending the current entry line, 1 for a pattern; moves to the next line. */
+	private double nextValue() throws IOException {
+		double v = pattern ? 1.0 : parser.nextDouble();
+		parser.nextLine();
+		return v;
+	}
+
+	/** Growable coordinate arrays. */
+	private static final class Triplets {
+		int[] rows, cols;
+		double[] vals;
+		int count;
+
+		Triplets(int capacity) {
+			capacity = Math.max(capacity, 1);
+			rows = new int[capacity];
+			cols = new int[capacity];
+			vals = new double[capacity];
+		}
+
+		void add(int i, int j, double v) {
+			if (count == rows.length) {
+				int capacity = (int) Math.min(Integer.MAX_VALUE - 8, 2L * count);
+				rows = java.util.Arrays.copyOf(rows, capacity);
+				cols = java.util.Arrays.copyOf(cols, capacity);
+				vals = java.util.Arrays.copyOf(vals, capacity);
+			}
+			rows[count] = i;
+			cols[count] = j;
+			vals[count] = v;
+			count++;
+		}
+	}
+}
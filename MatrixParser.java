@@ -0,0 +1,557 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser for matrices written as text.
+ * Input is read in large blocks into a byte buffer and numbers are parsed
+ * straight out of it into a growable double array, so no String, boxed
+ * Double or token object is created per element. Values on a line may be
+ * separated by any mix of spaces, tabs and commas, which covers whitespace
+ * separated files, CSV and the data lines of Matrix Market files; lines
+ * whose first character is '%' are comments and are skipped.
+ * Decimal numbers whose significant digits form an integer below 2^53 and
+ * whose exponent is small are converted exactly with one multiplication or
+ * division by a power of ten; anything else, including NaN and Infinity, falls back to
+ * Double.parseDouble.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class MatrixParser {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Bytes read from the source at a time. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Powers of ten that are exact doubles. */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/** Longest array readFlatMatrix allocates, a little under the VM limit. */
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	/** Largest mantissa that converts exactly, 2^53. */
+	private static final long EXACT_MANTISSA = 1L << 53;
+
+	/** Source, at most one of them set; neither for an array. */
+	private final InputStream in;
+	private final Reader reader;
+
+	/** Input bytes; for a Reader, characters narrowed through chars. */
+	private final byte[] buf;
+	private final char[] chars;
+
+	/** Next byte to read and end of valid bytes in buf. */
+	private int pos, limit;
+
+	/** Bytes consumed before the current contents of buf, measured from its start. */
+	private long consumed;
+	private final int start;
+
+	/** Set once the source is exhausted. */
+	private boolean eof;
+
+	/** Current line, from 1, for error messages. */
+	private int line = 1;
+
+	/** Time of the first read, for the throughput. */
+	private long startNanos = -1;
+
+	/** Values of the last row read. */
+	private double[] values = new double[16];
+	private int size;
+
+	/** Characters of the number being parsed, kept for the slow path. */
+	private byte[] token = new byte[32];
+	private int tokenLength;
+
+	/* ------------------------
+	   Constructors
+	 * ------------------------ */
+
+	/** Parse from a byte stream; the stream is read in blocks, not closed.
+	 * @param in   Source
+	 */
+	public MatrixParser(InputStream in) {
+		this.in = in;
+		this.reader = null;
+		this.buf = new byte[BUFFER_SIZE];
+		this.chars = null;
+		this.start = 0;
+	}
+
+	/** Parse from a character stream. If the reader supports mark, it is
+	 * left just after the last character readMatrix used, so several
+	 * matrices can be read from one reader in turn.
+	 * @param reader Source
+	 */
+	public MatrixParser(Reader reader) {
+		this.in = null;
+		this.reader = reader;
+		this.buf = new byte[BUFFER_SIZE];
+		this.chars = new char[BUFFER_SIZE];
+		this.start = 0;
+	}
+
+	/** Parse from part of an array without copying it.
+	 * @param data   Input bytes
+	 * @param offset First byte to parse
+	 * @param length Number of bytes to parse
+	 */
+	public MatrixParser(byte[] data, int offset, int length) {
+		this.in = null;
+		this.reader = null;
+		this.buf = data;
+		this.chars = null;
+		this.start = offset;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.eof = true;
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Parse one row of a matrix or vector, as MatrixScanner does.
+	 * @param row  Text of the row
+	 * @return     The values on the row
+	 * @exception  IOException A value is not a number.
+	 */
+	public static double[] parseRow(String row) throws IOException {
+		byte[] bytes = row.getBytes(StandardCharsets.ISO_8859_1);
+		MatrixParser parser = new MatrixParser(bytes, 0, bytes.length);
+		int n = parser.readRow();
+		return n <= 0 ? new double[0] : Arrays.copyOf(parser.values, n);
+	}
+
+	/** Read a matrix in the format of Matrix.print: initial empty lines are
+	 * skipped, then each line is a row until a blank line or the end of input.
+	 * @return     The matrix
+	 * @exception  IOException Input ended before a row, a row is ragged or a value is not a number.
+	 */
+	public Matrix readMatrix() throws IOException {
+		int n;
+		do {
+			n = readRow();
+			if (n < 0) {
+				throw new IOException("Unexpected EOF on matrix read.");
+			}
+		} while (n == 0);
+
+		List<double[]> rows = new ArrayList<double[]>();
+		rows.add(Arrays.copyOf(values, n));
+		int k;
+		while ((k = readRow()) > 0) {
+			if (k > n) {
+				throw new IOException("Row " + (rows.size() + 1) + " is too long.");
+			}
+			if (k < n) {
+				throw new IOException("Row " + (rows.size() + 1) + " is too short.");
+			}
+			rows.add(Arrays.copyOf(values, n));
+		}
+		release();
+		return new Matrix(rows.toArray(new double[rows.size()][]), rows.size(), n);
+	}
+
+	/** Read a matrix as readMatrix does, appending every row to one
+	 * growable array instead of allocating an array per row.
+	 * @return     Row-major FlatMatrix
+	 * @exception  IOException Input ended before a row, a row is ragged or a value is not a number.
+	 */
+	public FlatMatrix readFlatMatrix() throws IOException {
+		int n;
+		do {
+			n = readRow();
+			if (n < 0) {
+				throw new IOException("Unexpected EOF on matrix read.");
+			}
+		} while (n == 0);
+
+		double[] data = new double[(int) Math.min(16L * n, MAX_ARRAY_LENGTH)];
+		int m = 0;
+		int k = n;
+		do {
+			if (k > n) {
+				throw new IOException("Row " + (m + 1) + " is too long.");
+			}
+			if (k < n) {
+				throw new IOException("Row " + (m + 1) + " is too short.");
+			}
+			long needed = (long) (m + 1) * n;
+			if (needed > data.length) {
+				if (needed > MAX_ARRAY_LENGTH) {
+					throw new IOException("Matrix with " + n + " columns has too many rows for one array.");
+				}
+				data = Arrays.copyOf(data, (int) Math.max(needed, Math.min(2L * data.length, MAX_ARRAY_LENGTH)));
+			}
+			System.arraycopy(values, 0, data, m * n, n);
+			m++;
+		} while ((k = readRow()) > 0);
+		release();
+		return new FlatMatrix(m * n == data.length ? data : Arrays.copyOf(data, m * n), m, n);
+	}
+
+	/** Parse the next line into the row buffer, skipping comment lines
+	 * @return     Number of values on the line, 0 for a blank line, -1 at the end of input
+	 * @exception  IOException A value is not a number.
+	 * @see #getRow()
+	 */
+	public int readRow() throws IOException {
+		size = 0;
+		while (true) {
+			if (peek() < 0) {
+				return -1;
+			}
+			if (!skipSeparators() || peek() != '%') {
+				break;
+			}
+			nextLine();
+		}
+		while (skipSeparators()) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, 2 * size);
+			}
+			values[size++] = parseDouble();
+		}
+		nextLine();
+		return size;
+	}
+
+	/** The values of the row last read, valid until the next readRow
+	 * @return     Row buffer; only the first getRowLength() entries are meaningful
+	 */
+	public double[] getRow() {
+		return values;
+	}
+
+	/** Number of values in the row last read
+	 * @return     size of the row
+	 */
+	public int getRowLength() {
+		return size;
+	}
+
+	/** Is there another value on the current line?
+	 * @return     true if a value follows before the line break
+	 * @exception  IOException The source could not be read.
+	 */
+	public boolean hasNext() throws IOException {
+		return skipSeparators();
+	}
+
+	/** Parse the next value on the current line
+	 * @return     The value
+	 * @exception  IOException The line has no more values or the value is not a number.
+	 */
+	public double nextDouble() throws IOException {
+		if (!skipSeparators()) {
+			throw new IOException("Missing value on line " + line + ".");
+		}
+		return parseDouble();
+	}
+
+	/** Parse the next value on the current line as an integer
+	 * @return     The value
+	 * @exception  IOException The line has no more values or the value is not an integer.
+	 */
+	public long nextLong() throws IOException {
+		if (!skipSeparators()) {
+			throw new IOException("Missing value on line " + line + ".");
+		}
+		tokenLength = 0;
+		int c = peek();
+		boolean negative = c == '-';
+		if (c == '-' || c == '+') {
+			keep(c);
+			pos++;
+		}
+		long value = 0;
+		int digits = 0;
+		while ((c = peek()) >= '0' && c <= '9') {
+			keep(c);
+			value = value * 10 + (c - '0');
+			digits++;
+			pos++;
+		}
+		if (digits == 0 || digits > 18 || (c >= 0 && !isSeparator(c) && c != '\n')) {
+			throw new IOException("Could not parse \"" + restOfToken() + "\" as an integer on line " + line + ".");
+		}
+		tokenLength = 0;
+		return negative ? -value : value;
+	}
+
+	/** Read the next word on the current line
+	 * @return     The word, or null if the line has no more words
+	 * @exception  IOException The source could not be read.
+	 */
+	public String nextWord() throws IOException {
+		if (!skipSeparators()) {
+			return null;
+		}
+		tokenLength = 0;
+		return restOfToken();
+	}
+
+	/** Skip the rest of the current line and its line break
+	 * @return     false if the end of input has been reached
+	 * @exception  IOException The source could not be read.
+	 */
+	public boolean nextLine() throws IOException {
+		int c;
+		while ((c = peek()) >= 0) {
+			pos++;
+			if (c == '\n') {
+				line++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Number of the current line, from 1
+	 * @return     line
+	 */
+	public int getLineNumber() {
+		return line;
+	}
+
+	/** Bytes parsed so far
+	 * @return     Byte count
+	 */
+	public long getBytesRead() {
+		return consumed + pos - start;
+	}
+
+	/** Parsing throughput since the first read
+	 * @return     Megabytes (10^6 bytes) parsed per second
+	 */
+	public double getMegabytesPerSecond() {
+		if (startNanos < 0) {
+			return 0;
+		}
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return getBytesRead() / 1e6 / seconds;
+	}
+
+	/** Parse a text matrix file and report its size and the parsing rate.
+	 * Usage: java MatrixParser file
+	 */
+	public static void main(String[] args) throws IOException {
+		try (InputStream in = new FileInputStream(args[0])) {
+			MatrixParser parser = new MatrixParser(in);
+			Matrix A = parser.readMatrix();
+			System.out.println("Read " + A.getRowDimension() + "x" + A.getColumnDimension()
+					+ " matrix, " + parser.getBytesRead() + " bytes at "
+					+ parser.getMegabytesPerSecond() + " MB/s");
+		}
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	private static boolean isSeparator(int c) {
+		return c == ' ' || c == '\t' || c == ',' || c == '\r';
+	}
+
+	/** Next byte without consuming it, or -1 at the end of input. */
+	private int peek() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		return buf[pos] & 0xFF;
+	}
+
+	/** Skip separators; true if a value follows on the current line. */
+	private boolean skipSeparators() throws IOException {
+		int c;
+		while (isSeparator(c = peek())) {
+			pos++;
+		}
+		return c >= 0 && c != '\n';
+	}
+
+	/** Replace the buffer with the next block of input. */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		if (startNanos < 0) {
+			startNanos = System.nanoTime();
+		}
+		consumed += limit;
+		pos = 0;
+		limit = 0;
+		int r;
+		if (in != null) {
+			do {
+				r = in.read(buf, 0, buf.length);
+			} while (r == 0);
+		} else {
+			if (reader.markSupported()) {
+				reader.mark(chars.length);
+			}
+			do {
+				r = reader.read(chars, 0, chars.length);
+			} while (r == 0);
+			for (int i = 0; i < r; i++) {
+				char ch = chars[i];
+				buf[i] = (byte) (ch < 0x80 ? ch : 0x80);
+			}
+		}
+		if (r < 0) {
+			eof = true;
+			return false;
+		}
+		limit = r;
+		return true;
+	}
+
+	/** Return unparsed characters to a markable reader. */
+	private void release() throws IOException {
+		if (reader != null && reader.markSupported() && limit > 0) {
+			reader.reset();
+			long skip = pos;
+			while (skip > 0) {
+				skip -= reader.skip(skip);
+			}
+			consumed += pos;
+			pos = 0;
+			limit = 0;
+		}
+	}
+
+	private void keep(int c) {
+		if (tokenLength == token.length) {
+			token = Arrays.copyOf(token, 2 * tokenLength);
+		}
+		token[tokenLength++] = (byte) c;
+	}
+
+	/** Consume the rest of the current token, keeping its characters. */
+	private void finishToken() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && !isSeparator(c) && c != '\n') {
+			keep(c);
+			pos++;
+		}
+	}
+
+	/** Consume the rest of the current token and return all of it. */
+	private String restOfToken() throws IOException {
+		finishToken();
+		String s = new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+		tokenLength = 0;
+		return s;
+	}
+
+	/** Parse the number starting at pos. */
+	private double parseDouble() throws IOException {
+		tokenLength = 0;
+		int c = peek();
+		boolean negative = c == '-';
+		if (c == '-' || c == '+') {
+			keep(c);
+			pos++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean sawDigit = false;
+		boolean exact = true;
+		while ((c = peek()) >= '0' && c <= '9') {
+			keep(c);
+			pos++;
+			sawDigit = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa != 0) {
+					digits++;
+				}
+			} else {
+				exact = false;
+			}
+		}
+		if (c == '.') {
+			keep(c);
+			pos++;
+			while ((c = peek()) >= '0' && c <= '9') {
+				keep(c);
+				pos++;
+				sawDigit = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					exponent--;
+					if (mantissa != 0) {
+						digits++;
+					}
+				} else {
+					exact = false;
+				}
+			}
+		}
+		if (sawDigit && (c == 'e' || c == 'E')) {
+			keep(c);
+			pos++;
+			c = peek();
+			boolean negativeExponent = c == '-';
+			if (c == '-' || c == '+') {
+				keep(c);
+				pos++;
+			}
+			int e = 0;
+			boolean sawExponentDigit = false;
+			while ((c = peek()) >= '0' && c <= '9') {
+				keep(c);
+				pos++;
+				sawExponentDigit = true;
+				if (e < 100000) {
+					e = e * 10 + (c - '0');
+				}
+			}
+			exact &= sawExponentDigit;
+			exponent += negativeExponent ? -e : e;
+		}
+		if (c >= 0 && !isSeparator(c) && c != '\n') {
+			// Not a plain decimal number; let Double.parseDouble decide
+			exact = false;
+			finishToken();
+		}
+		if (exact && sawDigit && mantissa < EXACT_MANTISSA && exponent > -POW10.length
+				&& exponent < POW10.length) {
+			tokenLength = 0;
+			double value;
+			if (mantissa == 0) {
+				value = 0.0;
+			} else if (exponent >= 0) {
+				value = mantissa * POW10[exponent];
+			} else {
+				value = mantissa / POW10[-exponent];
+			}
+			return negative ? -value : value;
+		}
+		return slowParse();
+	}
+
+	private double slowParse() throws IOException {
+		String s = new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+		tokenLength = 0;
+		try {
+			return Double.parseDouble(s);
+		} catch (NumberFormatException e) {
+			throw new IOException("Could not parse \"" + s + "\" as a double on line " + line + ".");
+		}
+	}
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -78,22 +79,17 @@ public class MatrixScanner {
     }
 
     /**
-     * Parses a line as a row in a matrix or vector
+     * Parses a line as a row in a matrix or vector. Values may be
+     * separated by any number of spaces, tabs or commas.
      * @param row String version of row to be parsed.
      * @return Parsed version of row.
      * @throws InputMismatchException if row is not properly formatted.
      */
     private double[] parseRow(String row) {
-        String[] asArray = row.split(" ");
-        double[] result = new double[asArray.length];
-        for (int i = 0; i < asArray.length; i++) {
-            try {
-                result[i] = Double.parseDouble(asArray[i]);
-            } catch (NumberFormatException e) {
-                throw new InputMismatchException("Could not parse \""
-                        + asArray[i] + "\" as a double.");
-            }
+        try {
+            return MatrixParser.parseRow(row);
+        } catch (IOException e) {
+            throw new InputMismatchException(e.getMessage());
         }
-        return result;
     }
 }
@@ -0,0 +1,415 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Self-checking tester for the matrix kernels.
+ * Each check throws an AssertionError with the failing condition, so the
+ * run stops at the first failure; a clean run prints one line per check.
+ * Timings are only reported, never checked, and run on request.
+ * Usage: java MatrixTester [benchmark]
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class MatrixTester {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals("benchmark")) {
+			benchmarkHouseholder();
+			return;
+		}
+		testParallelMultiplyTiles();
+		testBlockedHouseholder();
+		testHouseholderScaling();
+		testMulticolorResidual();
+		testGivensRotations();
+		testCorruptMatrixFile();
+		testNonsymmetricEigenvectors();
+		testFlatMatrix();
+		System.out.println("All checks passed.");
+	}
+
+	/* ------------------------
+	   Checks
+	 * ------------------------ */
+
+	/** Parallel products are split into tiles no smaller than the kernel's cache blocks. */
+	static void testParallelMultiplyTiles() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ForkJoinPool previous = Matrix.getParallelPool();
+		Matrix.setParallelPool(pool);
+		try {
+			int[][] shapes = {{1000, 1000}, {4000, 300}, {300, 4000}, {100, 100000}, {513, 257}};
+			for (int[] shape : shapes) {
+				final int m = shape[0];
+				final int n = shape[1];
+				final List<int[]> tiles = new ArrayList<int[]>();
+				Matrix.forEachMultiplyTile(m, n, (i0, i1, j0, j1) -> {
+					synchronized (tiles) {
+						tiles.add(new int[] {i0, i1, j0, j1});
+					}
+				});
+				long covered = 0;
+				for (int[] t : tiles) {
+					int rows = t[1] - t[0];
+					int cols = t[3] - t[2];
+					check(rows >= Math.min(Matrix.MIN_TILE_ROWS, m),
+							"tile of " + m + "x" + n + " has only " + rows + " rows");
+					check(cols >= Math.min(Matrix.MIN_TILE_COLS, n),
+							"tile of " + m + "x" + n + " has only " + cols + " columns");
+					covered += (long) rows * cols;
+				}
+				check(covered == (long) m * n, "tiles of " + m + "x" + n + " do not cover the result");
+				check(m * (long) n <= Matrix.getParallelThreshold() || tiles.size() > 1,
+						m + "x" + n + " was not split");
+			}
+
+			Random rand = new Random(1);
+			Matrix A = random(600, 300, rand);
+			Matrix B = random(300, 700, rand);
+			Matrix P = A.multiply(B);
+			Matrix.setParallelPool(null);
+			Matrix S = A.multiply(B);
+			check(maxDifference(P, S) == 0, "parallel product differs from sequential");
+		} finally {
+			Matrix.setParallelPool(previous);
+			pool.shutdown();
+		}
+		System.out.println("testParallelMultiplyTiles passed");
+	}
+
+	/** Blocked Householder QR matches the unblocked one. */
+	static void testBlockedHouseholder() {
+		Matrix A = random(600, 200, new Random(2));
+		HouseholderQR qrBlocked = new HouseholderQR(A);
+		HouseholderQR qrUnblocked = new HouseholderQR(A, 1);
+		double difference = maxDifference(qrBlocked.getR(), qrUnblocked.getR());
+		check(difference < 1e-10, "blocked and unblocked R differ by " + difference);
+		double error = maxDifference(qrBlocked.getQ().multiply(qrBlocked.getR()), A);
+		check(error < 1e-10, "Q*R differs from A by " + error);
+		System.out.println("testBlockedHouseholder passed");
+	}
+
+	/** Householder QR reproduces A and solves A x = b when squaring the entries would underflow or overflow. */
+	static void testHouseholderScaling() {
+		Random rand = new Random(7);
+		for (double scale : new double[] {1, 1e160, 1e200, 1e-170, 1e-200}) {
+			for (int[] shape : new int[][] {{30, 20}, {40, 40}, {25, 60}, {100, 70}}) {
+				Matrix A = random(shape[0], shape[1], rand);
+				double[][] a = A.getArray();
+				for (int i = 0; i < shape[0]; i++) {
+					for (int j = 0; j < shape[1]; j++) {
+						a[i][j] *= scale;
+					}
+				}
+				for (HouseholderQR qr : new HouseholderQR[] {new HouseholderQR(A), new HouseholderQR(A, 1)}) {
+					double error = qr.getError() / scale;
+					check(error < 1e-12, "Householder Q*R differs from A by " + error + " at scale " + scale);
+				}
+				if (shape[0] == shape[1]) {
+					double[] x = new double[shape[1]];
+					for (int j = 0; j < x.length; j++) {
+						x[j] = j + 1;
+					}
+					double[] solution = new HouseholderQR(A).solve(A.multiplyVector(x));
+					for (int j = 0; j < x.length; j++) {
+						check(Math.abs(solution[j] - x[j]) < 1e-8 * x.length,
+								"Householder solve is off by " + (solution[j] - x[j]) + " at scale " + scale);
+					}
+				}
+			}
+		}
+		System.out.println("testHouseholderScaling passed");
+	}
+
+	/** The residual a multicolor sweep reports matches operator.residual taken color by color. */
+	static void testMulticolorResidual() {
+		int nx = 100;
+		SparseMatrix A = SparseMatrix.laplacian2D(nx, nx);
+		int size = A.getRowDimension();
+		int[][] classes = SparseMatrix.colorClasses(SparseMatrix.redBlackColoring(nx, nx));
+		double[] invDiag = Iteration.invertDiagonal(A);
+		Random rand = new Random(3);
+		double[] b = new double[size];
+		double[] x = new double[size];
+		for (int i = 0; i < size; i++) {
+			b[i] = rand.nextDouble();
+			x[i] = rand.nextDouble();
+		}
+		double omega = 1.5;
+
+		// Expected: before each color is relaxed, the residual of its rows
+		double[] expectedX = x.clone();
+		double[] r = new double[size];
+		double expected = 0;
+		for (int[] rows : classes) {
+			A.residual(b, expectedX, r);
+			for (int i : rows) {
+				expected += r[i] * r[i];
+			}
+			A.multicolorSweep(b, invDiag, expectedX, omega, new int[][] {rows}, true, null);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (ForkJoinPool p : new ForkJoinPool[] {null, pool}) {
+				double[] actualX = x.clone();
+				double[] residual = new double[1];
+				A.multicolorSweep(b, invDiag, actualX, omega, classes, true, p, residual);
+				check(Math.abs(residual[0] - expected) <= 1e-12 * expected,
+						"multicolor residual " + residual[0] + ", expected " + expected);
+				check(Arrays.equals(actualX, expectedX), "multicolor sweep changed the iterate differently");
+			}
+
+			// Converged by the incremental estimate, confirmed by the exact residual
+			GaussSeidel gs = new GaussSeidel(A, b);
+			gs.setVerbose(false);
+			gs.setRelaxation(omega);
+			gs.setColoring(SparseMatrix.redBlackColoring(nx, nx), pool);
+			gs.setStoppingCriterion(StoppingCriterion.RELATIVE_RESIDUAL);
+			double[] solution = gs.gs_iter(new double[size], 1e-8, 10000);
+			check(solution != null, "multicolor Gauss-Seidel did not converge");
+			double exact = A.residual(b, solution, r) / Matrix.norm(b);
+			check(exact <= 1e-8, "multicolor Gauss-Seidel stopped at relative residual " + exact);
+		} finally {
+			pool.shutdown();
+		}
+		System.out.println("testMulticolorResidual passed");
+	}
+
+	/** Givens QR reproduces A, including entries whose squares overflow or underflow. */
+	static void testGivensRotations() {
+		Random rand = new Random(4);
+		for (double scale : new double[] {1, 1e200, 1e-200}) {
+			for (int[] shape : new int[][] {{40, 40}, {60, 25}, {25, 60}}) {
+				Matrix A = random(shape[0], shape[1], rand);
+				double[][] a = A.getArray();
+				for (int i = 0; i < shape[0]; i++) {
+					for (int j = 0; j < shape[1]; j++) {
+						a[i][j] *= scale;
+					}
+					a[i][i % shape[1]] = i % 3 == 0 ? 0 : a[i][i % shape[1]];
+				}
+				GivensQR qr = new GivensQR(A);
+				Matrix Q = qr.getQ();
+				Matrix R = qr.getR();
+				double error = maxDifference(Q.multiply(R), A) / scale;
+				check(error < 1e-12, "Givens Q*R differs from A by " + error + " at scale " + scale);
+				double orthogonality = maxDifference(Q.transpose().multiply(Q), Matrix.identity(shape[0], shape[0]));
+				check(orthogonality < 1e-12, "Givens Q is not orthogonal: " + orthogonality);
+				double[] b = new double[shape[0]];
+				b[0] = scale;
+				double[] y = qr.applyQT(b);
+				double[] expected = Q.transpose().multiplyVector(b);
+				for (int i = 0; i < y.length; i++) {
+					check(Math.abs(y[i] - expected[i]) <= 1e-12 * scale, "Givens applyQT differs from Q^T b");
+				}
+			}
+		}
+		System.out.println("testGivensRotations passed");
+	}
+
+	/** Truncated or corrupt matrix file headers are rejected with an IOException by read and map. */
+	static void testCorruptMatrixFile() throws IOException {
+		Path file = Files.createTempFile("matrix", ".bin");
+		try {
+			Matrix A = random(7, 5, new Random(5));
+			MatrixFile.write(A, file);
+			check(maxDifference(MatrixFile.read(file), A) == 0, "matrix file round trip changed the matrix");
+			byte[] good = Files.readAllBytes(file);
+
+			List<byte[]> corrupt = new ArrayList<byte[]>();
+			corrupt.add(Arrays.copyOf(good, 10));
+			corrupt.add(Arrays.copyOf(good, good.length - 8));
+			corrupt.add(withHeader(good, 0, 0x12345678));
+			corrupt.add(withDimensions(good, 0, 5));
+			corrupt.add(withDimensions(good, 7, -1));
+			corrupt.add(withDimensions(good, 1L << 40, 5));
+			corrupt.add(withDimensions(good, Integer.MAX_VALUE, Integer.MAX_VALUE));
+			// 8 * rows * cols wraps to a small positive byte count
+			corrupt.add(withDimensions(good, 1L << 30, 1L << 30));
+			for (int c = 0; c < corrupt.size(); c++) {
+				Files.write(file, corrupt.get(c));
+				for (int mode = 0; mode < 2; mode++) {
+					boolean rejected = false;
+					try {
+						if (mode == 0) {
+							MatrixFile.read(file);
+						} else {
+							MatrixFile.map(file).close();
+						}
+					} catch (IOException e) {
+						rejected = true;
+					}
+					check(rejected, "corrupt matrix file " + c + " was accepted by " + (mode == 0 ? "read" : "map"));
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+		System.out.println("testCorruptMatrixFile passed");
+	}
+
+	/** Eigenvectors of nonsymmetric matrices, including complex pairs, satisfy A*V = V*D. */
+	static void testNonsymmetricEigenvectors() {
+		Random rand = new Random(6);
+		for (int n : new int[] {2, 3, 10, 60}) {
+			Matrix A = random(n, n, rand);
+			EigenvalueDecomposition eig = new EigenvalueDecomposition(A);
+			check(!eig.isSymmetric(), "random matrix reported as symmetric");
+			Matrix V = eig.getV();
+			double error = maxDifference(A.multiply(V), V.multiply(eig.getD()));
+			check(error < 1e-10, "A*V differs from V*D by " + error + " for n = " + n);
+		}
+		// A rotation has only the complex pair +- i
+		Matrix rotation = new Matrix(new double[][] {{0, -1}, {1, 0}});
+		EigenvalueDecomposition eig = new EigenvalueDecomposition(rotation);
+		Matrix V = eig.getV();
+		check(Math.abs(Math.abs(eig.getImagEigenvalues()[0]) - 1) < 1e-15, "rotation eigenvalues are not +- i");
+		check(maxDifference(rotation.multiply(V), V.multiply(eig.getD())) < 1e-15, "rotation A*V differs from V*D");
+		System.out.println("testNonsymmetricEigenvectors passed");
+	}
+
+	/** FlatMatrix views, products and loaders agree with Matrix. */
+	static void testFlatMatrix() throws IOException {
+		Random rand = new Random(7);
+		Matrix A = random(9, 6, rand);
+		FlatMatrix F = new FlatMatrix(A);
+		check(maxDifference(F.toMatrix(), A) == 0, "FlatMatrix round trip changed the matrix");
+
+		// Views share the array, so apply and multiply must follow the strides
+		FlatMatrix view = F.getMatrix(2, 7, 1, 4).transpose();
+		Matrix expected = A.getMatrix(2, 7, 1, 4).transpose();
+		double[] x = new double[view.getColumnDimension()];
+		for (int j = 0; j < x.length; j++) {
+			x[j] = rand.nextDouble() - 0.5;
+		}
+		double[] y = new double[view.getRowDimension()];
+		double[] yExpected = new double[y.length];
+		view.apply(x, y);
+		expected.apply(x, yExpected);
+		for (int i = 0; i < y.length; i++) {
+			check(Math.abs(y[i] - yExpected[i]) < 1e-15, "FlatMatrix view apply differs from Matrix");
+		}
+		Matrix B = random(6, 5, rand);
+		check(maxDifference(view.multiply(new FlatMatrix(B.getMatrix(0, 5, 0, 4))).toMatrix(),
+				expected.multiply(B)) < 1e-14, "FlatMatrix view product differs from Matrix");
+		view.set(0, 0, 42);
+		check(F.get(2, 1) == 42, "view write did not reach the parent");
+
+		Path file = Files.createTempFile("matrix", ".bin");
+		try {
+			MatrixFile.write(A, file);
+			check(maxDifference(MatrixFile.readFlat(file).toMatrix(), A) == 0, "readFlat changed the matrix");
+			try (MappedMatrix mapped = MatrixFile.map(file)) {
+				check(maxDifference(mapped.toFlatMatrix().toMatrix(), A) == 0, "toFlatMatrix changed the matrix");
+			}
+		} finally {
+			Files.delete(file);
+		}
+
+		// Enough rows to grow the parser's array past its first allocation
+		StringBuilder text = new StringBuilder("\n");
+		Matrix T = random(40, 3, rand);
+		for (int i = 0; i < T.getRowDimension(); i++) {
+			for (int j = 0; j < T.getColumnDimension(); j++) {
+				text.append(T.get(i, j)).append(j + 1 < T.getColumnDimension() ? ", " : "\n");
+			}
+		}
+		byte[] bytes = text.toString().getBytes("ISO-8859-1");
+		FlatMatrix parsed = new MatrixParser(bytes, 0, bytes.length).readFlatMatrix();
+		check(parsed.getRowDimension() == 40 && parsed.isRowPacked(), "readFlatMatrix has the wrong shape");
+		check(maxDifference(parsed.toMatrix(), T) == 0, "readFlatMatrix differs from the text");
+		boolean rejected = false;
+		byte[] ragged = "1 2 3\n4 5\n".getBytes("ISO-8859-1");
+		try {
+			new MatrixParser(ragged, 0, ragged.length).readFlatMatrix();
+		} catch (IOException e) {
+			rejected = true;
+		}
+		check(rejected, "readFlatMatrix accepted a ragged row");
+		System.out.println("testFlatMatrix passed");
+	}
+
+	/* ------------------------
+	   Benchmarks
+	 * ------------------------ */
+
+	/** Best-of-several times of blocked and unblocked Householder QR on tall and square input. */
+	static void benchmarkHouseholder() {
+		Random rand = new Random(2);
+		for (int[] shape : new int[][] {{3000, 400}, {4000, 500}, {1000, 1000}}) {
+			Matrix A = random(shape[0], shape[1], rand);
+			long blocked = Long.MAX_VALUE;
+			long unblocked = Long.MAX_VALUE;
+			// The first run only warms up both paths
+			for (int run = 0; run < 5; run++) {
+				long start = System.nanoTime();
+				new HouseholderQR(A);
+				long middle = System.nanoTime();
+				new HouseholderQR(A, 1);
+				long end = System.nanoTime();
+				if (run > 0) {
+					blocked = Math.min(blocked, middle - start);
+					unblocked = Math.min(unblocked, end - middle);
+				}
+			}
+			System.out.println("Householder QR " + shape[0] + "x" + shape[1] + ": blocked "
+					+ blocked / 1000000 + " ms, unblocked " + unblocked / 1000000 + " ms");
+		}
+	}
+
+	/* ------------------------
+	   Helpers
+	 * ------------------------ */
+
+	static Matrix random(int m, int n, Random rand) {
+		Matrix X = new Matrix(m, n);
+		double[][] C = X.getArray();
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				C[i][j] = 2 * rand.nextDouble() - 1;
+			}
+		}
+		return X;
+	}
+
+	static double maxDifference(Matrix A, Matrix B) {
+		double[][] a = A.getArray();
+		double[][] b = B.getArray();
+		double max = 0;
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < a[i].length; j++) {
+				max = Math.max(max, Math.abs(a[i][j] - b[i][j]));
+			}
+		}
+		return max;
+	}
+
+	/** Copy of a matrix file with the int at byte offset replaced. */
+	static byte[] withHeader(byte[] file, int offset, int value) {
+		byte[] copy = file.clone();
+		ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+		return copy;
+	}
+
+	/** Copy of a matrix file with the dimensions in the header replaced. */
+	static byte[] withDimensions(byte[] file, long rows, long cols) {
+		byte[] copy = file.clone();
+		ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putLong(8, rows).putLong(16, cols);
+		return copy;
+	}
+
+	static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+}
@@ -0,0 +1,12 @@
+/**
+ * Approximate inverse M^-1 of a matrix, applied to a residual to speed up
+ * Krylov iterations such as ConjugateGradient.
+ */
+public interface Preconditioner {
+    /**
+     * Solve M z = r
+     * @param r residual, not modified
+     * @param z output, must not be r
+     */
+    void apply(double[] r, double[] z);
+}
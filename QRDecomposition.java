@@ -0,0 +1,143 @@
+/**
+ * Result of factoring a matrix once as A = Q*R.
+ * Subclasses perform the factorization in their constructor; Q, R and the
+ * reconstruction error are then computed on first use and cached, so asking
+ * for several of them never repeats the factorization.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public abstract class QRDecomposition implements java.io.Serializable {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** The factored matrix, kept to measure the error of Q*R. */
+	protected final Matrix A;
+
+	/** Row and column dimensions. */
+	protected final int m, n;
+
+	/** Cached factors and error, null or NaN until first asked for. */
+	private Matrix Q, R;
+	private double error = Double.NaN;
+
+	/* ------------------------
+	   Constructor
+	 * ------------------------ */
+
+	/**
+	 * @param A    Matrix being factored. It is not copied, so it should not
+	 *             be modified while the error may still be asked for.
+	 */
+	protected QRDecomposition(Matrix A) {
+		this.A = A;
+		this.m = A.getRowDimension();
+		this.n = A.getColumnDimension();
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Return the orthogonal factor, building it on first use
+	 * @return     Q, m-by-m
+	 */
+	public Matrix getQ() {
+		if (Q == null) {
+			Q = computeQ();
+		}
+		return Q;
+	}
+
+	/** Return the upper triangular factor, extracting it on first use
+	 * @return     R, m-by-n
+	 */
+	public Matrix getR() {
+		if (R == null) {
+			R = computeR();
+		}
+		return R;
+	}
+
+	/** Apply Q^T to a vector without forming Q
+	 * @param b    Vector with m entries
+	 * @return     Q^T b
+	 */
+	public abstract double[] applyQT(double[] b);
+
+	/** Apply Q^T to every column of a block in place
+	 * @param C    Array with m rows and any number of columns, overwritten with Q^T C
+	 */
+	protected abstract void applyQT(double[][] C);
+
+	/** Least squares solution of A*x = b
+	 * @param b    Vector with m entries
+	 * @return     x minimizing ||A*x - b||, exact if A is square and nonsingular
+	 * @exception  IllegalArgumentException A has more columns than rows.
+	 * @exception  ArithmeticException R is singular.
+	 */
+	public double[] solve(double[] b) {
+		if (m < n) {
+			throw new IllegalArgumentException("Least squares needs at least as many rows as columns.");
+		}
+		return MathOperations.backSubstitution(getR(), applyQT(b));
+	}
+
+	/** Least squares solution of A*X = B for all columns of B together
+	 * <p>Q^T is applied to the whole block and R is back substituted against
+	 * every column at once, so the factorization is read once per solve.
+	 * @param B    A Matrix with as many rows as A and any number of columns.
+	 * @return     X minimizing the residual of every column
+	 * @exception  IllegalArgumentException A has more columns than rows.
+	 * @exception  ArithmeticException R is singular.
+	 */
+	public Matrix solve(Matrix B) {
+		if (B.getRowDimension() != m) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		if (m < n) {
+			throw new IllegalArgumentException("Least squares needs at least as many rows as columns.");
+		}
+		double[][] C = B.getArrayCopy();
+		applyQT(C);
+		return MathOperations.backSubstitution(getR(), C);
+	}
+
+	/** Norm of the least squares residual ||A*x - b|| for the x solve(b)
+	 * would return, read off the trailing entries of Q^T b
+	 * @param b    Vector with m entries
+	 * @return     Residual norm
+	 */
+	public double residualNorm(double[] b) {
+		double[] y = applyQT(b);
+		double sum = 0;
+		for (int i = n; i < m; i++) {
+			sum += y[i] * y[i];
+		}
+		return Math.sqrt(sum);
+	}
+
+	/** Max norm of Q*R - A, computed on first use
+	 * @return     Reconstruction error
+	 * @see MathOperations#QRError(Matrix, Matrix)
+	 */
+	public double getError() {
+		if (Double.isNaN(error)) {
+			error = MathOperations.QRError(getQ().multiply(getR()), A);
+		}
+		return error;
+	}
+
+	/* ------------------------
+	   Protected Methods
+	 * ------------------------ */
+
+	/** Build Q from the stored factorization. */
+	protected abstract Matrix computeQ();
+
+	/** Build R from the stored factorization. */
+	protected abstract Matrix computeR();
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,722 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sparse matrix in compressed sparse row (CSR) form.
+ * The nonzeros of row i are values[rowPtr[i] .. rowPtr[i+1]-1], in the
+ * columns given by the same range of colIdx, sorted by column. Matrix-vector
+ * products and the Jacobi and Gauss-Seidel sweeps cost one pass over the
+ * nonzeros, so large systems with a few entries per row are never expanded
+ * into a dense array.
+ * @author Daniel Ansher, Max Kaplan, Jacob Goodpasture
+ * @version 1.0
+ */
+public class SparseMatrix implements java.io.Serializable, LinearOperator {
+
+	/* ------------------------
+	   Class variables
+	 * ------------------------ */
+
+	/** Row and column dimensions. */
+	private final int m, n;
+
+	/** Start of each row in colIdx and values, with rowPtr[m] = nnz. */
+	private final int[] rowPtr;
+
+	/** Column index of each nonzero. */
+	private final int[] colIdx;
+
+	/** Value of each nonzero. */
+	private final double[] values;
+
+	/** Rows of one color updated together before a multicolor sweep splits further. */
+	private static final int COLOR_CHUNK = 2048;
+
+	/* ------------------------
+	   Constructors
+	 * ------------------------ */
+
+	/** Construct a matrix directly from CSR arrays without copying them.
+	 * @param m       Number of rows.
+	 * @param n       Number of columns.
+	 * @param rowPtr  Row start offsets, length m+1.
+	 * @param colIdx  Column of each nonzero, sorted within each row.
+	 * @param values  Value of each nonzero.
+	 * @exception     IllegalArgumentException Arrays are inconsistent.
+	 */
+	public SparseMatrix(int m, int n, int[] rowPtr, int[] colIdx, double[] values) {
+		if (rowPtr.length != m + 1 || rowPtr[0] != 0 || colIdx.length < rowPtr[m]
+				|| values.length < rowPtr[m]) {
+			throw new IllegalArgumentException("CSR arrays do not match the dimensions.");
+		}
+		this.m = m;
+		this.n = n;
+		this.rowPtr = rowPtr;
+		this.colIdx = colIdx;
+		this.values = values;
+	}
+
+	/** Construct a sparse copy of the nonzero entries of a dense matrix.
+	 * @param A    Dense matrix.
+	 */
+	public SparseMatrix(Matrix A) {
+		this.m = A.getRowDimension();
+		this.n = A.getColumnDimension();
+		double[][] a = A.getArray();
+		int nnz = 0;
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				if (a[i][j] != 0) {
+					nnz++;
+				}
+			}
+		}
+		rowPtr = new int[m + 1];
+		colIdx = new int[nnz];
+		values = new double[nnz];
+		int k = 0;
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				if (a[i][j] != 0) {
+					colIdx[k] = j;
+					values[k] = a[i][j];
+					k++;
+				}
+			}
+			rowPtr[i + 1] = k;
+		}
+	}
+
+	/**
+	 * Build a matrix from coordinate (row, column, value) triplets in any
+	 * order. Duplicate entries are summed.
+	 * @param m       Number of rows.
+	 * @param n       Number of columns.
+	 * @param rows    Row of each triplet.
+	 * @param cols    Column of each triplet.
+	 * @param vals    Value of each triplet.
+	 * @param count   Number of triplets to use from the arrays.
+	 * @return        The CSR matrix.
+	 */
+	public static SparseMatrix fromTriplets(int m, int n, int[] rows, int[] cols, double[] vals, int count) {
+		int[] ptr = new int[m + 1];
+		for (int k = 0; k < count; k++) {
+			if (rows[k] < 0 || rows[k] >= m || cols[k] < 0 || cols[k] >= n) {
+				throw new ArrayIndexOutOfBoundsException("Entry (" + rows[k] + "," + cols[k] + ") is not valid");
+			}
+			ptr[rows[k] + 1]++;
+		}
+		for (int i = 0; i < m; i++) {
+			ptr[i + 1] += ptr[i];
+		}
+		int[] next = Arrays.copyOf(ptr, m);
+		int[] ci = new int[count];
+		double[] cv = new double[count];
+		for (int k = 0; k < count; k++) {
+			int dest = next[rows[k]]++;
+			ci[dest] = cols[k];
+			cv[dest] = vals[k];
+		}
+
+		// Sort each row by column and fold duplicates, compacting as we go.
+		int[] outPtr = new int[m + 1];
+		int out = 0;
+		for (int i = 0; i < m; i++) {
+			int start = ptr[i];
+			int end = ptr[i + 1];
+			sortRow(ci, cv, start, end);
+			for (int k = start; k < end; k++) {
+				if (out > outPtr[i] && ci[out - 1] == ci[k]) {
+					cv[out - 1] += cv[k];
+				} else {
+					ci[out] = ci[k];
+					cv[out] = cv[k];
+					out++;
+				}
+			}
+			outPtr[i + 1] = out;
+		}
+		return new SparseMatrix(m, n, outPtr, Arrays.copyOf(ci, out), Arrays.copyOf(cv, out));
+	}
+
+	/**
+	 * Five-point finite-difference Laplacian on an nx-by-ny grid with
+	 * Dirichlet boundaries, numbered row by row. It is symmetric positive
+	 * definite with 4 on the diagonal and -1 for each grid neighbour.
+	 * @param nx   Grid points per row.
+	 * @param ny   Number of grid rows.
+	 * @return     The (nx*ny)-by-(nx*ny) matrix.
+	 */
+	public static SparseMatrix laplacian2D(int nx, int ny) {
+		int size = nx * ny;
+		int[] ptr = new int[size + 1];
+		int[] ci = new int[5 * size];
+		double[] cv = new double[5 * size];
+		int k = 0;
+		for (int y = 0; y < ny; y++) {
+			for (int x = 0; x < nx; x++) {
+				int row = y * nx + x;
+				if (y > 0) {
+					ci[k] = row - nx;
+					cv[k++] = -1;
+				}
+				if (x > 0) {
+					ci[k] = row - 1;
+					cv[k++] = -1;
+				}
+				ci[k] = row;
+				cv[k++] = 4;
+				if (x < nx - 1) {
+					ci[k] = row + 1;
+					cv[k++] = -1;
+				}
+				if (y < ny - 1) {
+					ci[k] = row + nx;
+					cv[k++] = -1;
+				}
+				ptr[row + 1] = k;
+			}
+		}
+		return new SparseMatrix(size, size, ptr, Arrays.copyOf(ci, k), Arrays.copyOf(cv, k));
+	}
+
+	/* ------------------------
+	   Public Methods
+	 * ------------------------ */
+
+	/** Get row dimension.
+	 * @return     m, the number of rows.
+	 */
+	public int getRowDimension() {
+		return m;
+	}
+
+	/** Get column dimension.
+	 * @return     n, the number of columns.
+	 */
+	public int getColumnDimension() {
+		return n;
+	}
+
+	/** Number of stored nonzeros.
+	 * @return     nnz
+	 */
+	public int getNonZeros() {
+		return rowPtr[m];
+	}
+
+	/** Access the row offsets.
+	 * @return     Pointer to the internal rowPtr array.
+	 */
+	public int[] getRowPointers() {
+		return rowPtr;
+	}
+
+	/** Access the column indices.
+	 * @return     Pointer to the internal colIdx array.
+	 */
+	public int[] getColumnIndices() {
+		return colIdx;
+	}
+
+	/** Access the nonzero values.
+	 * @return     Pointer to the internal values array.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/** Get a single element.
+	 * @param i    Row index.
+	 * @param j    Column index.
+	 * @return     A(i,j), zero if it is not stored
+	 */
+	public double get(int i, int j) {
+		if (i < 0 || i >= m || j < 0 || j >= n) {
+			throw new ArrayIndexOutOfBoundsException("Index is not valid");
+		}
+		int k = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i + 1], j);
+		return k >= 0 ? values[k] : 0.0;
+	}
+
+	/** Copy the diagonal.
+	 * @return     A(i,i) for i = 0..min(m,n)-1
+	 */
+	public double[] getDiagonal() {
+		double[] d = new double[Math.min(m, n)];
+		for (int i = 0; i < d.length; i++) {
+			d[i] = get(i, i);
+		}
+		return d;
+	}
+
+	/** Expand into a dense matrix.
+	 * @return     Dense copy
+	 */
+	public Matrix toMatrix() {
+		Matrix X = new Matrix(m, n);
+		double[][] a = X.getArray();
+		for (int i = 0; i < m; i++) {
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				a[i][colIdx[k]] = values[k];
+			}
+		}
+		return X;
+	}
+
+	/**
+	 * Multiply with a vector
+	 * @param x Vector with n entries
+	 * @return A*x
+	 */
+	public double[] multiplyVector(double[] x) {
+		double[] y = new double[m];
+		multiply(x, y);
+		return y;
+	}
+
+	/**
+	 * Multiply with a vector into an existing array, y = A*x
+	 * @param x Vector with n entries
+	 * @param y Output with m entries, must not be x
+	 */
+	public void multiply(double[] x, double[] y) {
+		if (x.length != n || y.length != m) {
+			throw new IllegalArgumentException("Matrix and vector must be same length");
+		}
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				sum += values[k] * x[colIdx[k]];
+			}
+			y[i] = sum;
+		}
+	}
+
+	/**
+	 * Multiply with a vector into an existing array, y = A*x
+	 * @param x Vector with n entries
+	 * @param y Output with m entries, must not be x
+	 * @see #multiply(double[], double[])
+	 */
+	public void apply(double[] x, double[] y) {
+		multiply(x, y);
+	}
+
+	/**
+	 * Residual of a square system, r = b - A*x
+	 * @param b Right hand side
+	 * @param x Current solution
+	 * @param r Output, must not be x
+	 * @return ||r||, the Euclidean norm of the residual
+	 */
+	public double residual(double[] b, double[] x, double[] r) {
+		double norm = 0;
+		for (int i = 0; i < m; i++) {
+			double sum = b[i];
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				sum -= values[k] * x[colIdx[k]];
+			}
+			r[i] = sum;
+			norm += sum * sum;
+		}
+		return Math.sqrt(norm);
+	}
+
+	/**
+	 * One Jacobi sweep, xNew = xOld + D^-1 (b - A*xOld)
+	 * @param b       Right hand side
+	 * @param invDiag Reciprocals of the diagonal entries
+	 * @param xOld    Current iterate, not modified
+	 * @param xNew    Next iterate, must not be xOld
+	 * @return        Largest change in any entry, ||xNew - xOld||_inf
+	 */
+	public double jacobiSweep(double[] b, double[] invDiag, double[] xOld, double[] xNew) {
+		return jacobiSweep(b, invDiag, xOld, xNew, null);
+	}
+
+	/**
+	 * One Jacobi sweep that also reports the residual of xOld, which the
+	 * sweep computes row by row anyway.
+	 * @param b           Right hand side
+	 * @param invDiag     Reciprocals of the diagonal entries
+	 * @param xOld        Current iterate, not modified
+	 * @param xNew        Next iterate, must not be xOld
+	 * @param residualOut If not null, residualOut[0] is set to ||b - A*xOld||^2
+	 * @return            Largest change in any entry, ||xNew - xOld||_inf
+	 */
+	public double jacobiSweep(double[] b, double[] invDiag, double[] xOld, double[] xNew,
+			double[] residualOut) {
+		double step = 0;
+		double rr = 0;
+		for (int i = 0; i < m; i++) {
+			double r = b[i];
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				r -= values[k] * xOld[colIdx[k]];
+			}
+			rr += r * r;
+			double delta = r * invDiag[i];
+			xNew[i] = xOld[i] + delta;
+			step = Math.max(step, Math.abs(delta));
+		}
+		if (residualOut != null) {
+			residualOut[0] = rr;
+		}
+		return step;
+	}
+
+	/**
+	 * One Jacobi sweep for a block of right hand sides at once,
+	 * XNew = XOld + D^-1 (B - A*XOld). Row i of each array holds entry i of
+	 * every right hand side, so each nonzero of A is loaded once per sweep
+	 * and applied to the whole row of the block.
+	 * @param B           Right hand sides, one per column
+	 * @param invDiag     Reciprocals of the diagonal entries
+	 * @param XOld        Current iterates, not modified
+	 * @param XNew        Next iterates, must not share rows with XOld
+	 * @param residualOut If not null, residualOut[j] is set to ||B(:,j) - A*XOld(:,j)||^2
+	 * @return            Largest change in any entry of the block
+	 */
+	public double jacobiSweep(double[][] B, double[] invDiag, double[][] XOld, double[][] XNew,
+			double[] residualOut) {
+		int nx = B[0].length;
+		double[] r = new double[nx];
+		if (residualOut != null) {
+			Arrays.fill(residualOut, 0, nx, 0.0);
+		}
+		double step = 0;
+		for (int i = 0; i < m; i++) {
+			System.arraycopy(B[i], 0, r, 0, nx);
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				double a = values[k];
+				double[] xk = XOld[colIdx[k]];
+				for (int j = 0; j < nx; j++) {
+					r[j] -= a * xk[j];
+				}
+			}
+			double d = invDiag[i];
+			double[] xOld = XOld[i];
+			double[] xNew = XNew[i];
+			for (int j = 0; j < nx; j++) {
+				if (residualOut != null) {
+					residualOut[j] += r[j] * r[j];
+				}
+				double delta = r[j] * d;
+				xNew[j] = xOld[j] + delta;
+				step = Math.max(step, Math.abs(delta));
+			}
+		}
+		return step;
+	}
+
+	/**
+	 * One forward Gauss-Seidel sweep over rows, updating x in place so each
+	 * row already sees the new values of the rows before it.
+	 * @param b       Right hand side
+	 * @param invDiag Reciprocals of the diagonal entries
+	 * @param x       Current iterate, overwritten with the next one
+	 * @return        Largest change in any entry
+	 */
+	public double gaussSeidelSweep(double[] b, double[] invDiag, double[] x) {
+		return sorSweep(b, invDiag, x, 1.0, 0, m, 1, null);
+	}
+
+	/**
+	 * One successive over-relaxation sweep in place,
+	 * x(i) += omega * (b(i) - A(i,:)*x) / A(i,i) for each row in turn.
+	 * omega = 1 is Gauss-Seidel.
+	 * @param b       Right hand side
+	 * @param invDiag Reciprocals of the diagonal entries
+	 * @param x       Current iterate, overwritten with the next one
+	 * @param omega   Relaxation factor, 0 &lt; omega &lt; 2
+	 * @param forward true to visit rows first to last, false for last to first
+	 * @return        Largest change in any entry
+	 */
+	public double sorSweep(double[] b, double[] invDiag, double[] x, double omega, boolean forward) {
+		return sorSweep(b, invDiag, x, omega, forward, null);
+	}
+
+	/**
+	 * One SOR sweep that also reports the row residuals it computed on the
+	 * way. Each is taken just before its row is updated, so earlier rows
+	 * already hold new values; the sum is an estimate of ||b - A*x||^2 that
+	 * reaches zero exactly when the iteration has converged.
+	 * @param b           Right hand side
+	 * @param invDiag     Reciprocals of the diagonal entries
+	 * @param x           Current iterate, overwritten with the next one
+	 * @param omega       Relaxation factor, 0 &lt; omega &lt; 2
+	 * @param forward     true to visit rows first to last, false for last to first
+	 * @param residualOut If not null, residualOut[0] is set to the sum of squared row residuals
+	 * @return            Largest change in any entry
+	 */
+	public double sorSweep(double[] b, double[] invDiag, double[] x, double omega, boolean forward,
+			double[] residualOut) {
+		return forward ? sorSweep(b, invDiag, x, omega, 0, m, 1, residualOut)
+				: sorSweep(b, invDiag, x, omega, m - 1, -1, -1, residualOut);
+	}
+
+	/**
+	 * Red-black coloring of an nx-by-ny grid numbered row by row, as used by
+	 * {@link #laplacian2D}. No two grid neighbours share a color.
+	 * @param nx   Grid points per row.
+	 * @param ny   Number of grid rows.
+	 * @return     Color 0 or 1 for every grid point.
+	 */
+	public static int[] redBlackColoring(int nx, int ny) {
+		int[] colors = new int[nx * ny];
+		for (int y = 0; y < ny; y++) {
+			for (int x = 0; x < nx; x++) {
+				colors[y * nx + x] = (x + y) & 1;
+			}
+		}
+		return colors;
+	}
+
+	/**
+	 * Greedy coloring of the rows of a square matrix so that no two rows of
+	 * the same color are coupled, i.e. A(i,j) = A(j,i) = 0 whenever rows i
+	 * and j share a color. Each row gets the smallest color not already used
+	 * by a neighbour in either direction.
+	 * @return     Color of every row, numbered from 0.
+	 */
+	public int[] greedyColoring() {
+		if (m != n) {
+			throw new IllegalArgumentException("Matrix is not square");
+		}
+		// Pattern of A^T, so neighbours through A(j,i) are seen as well
+		int[] tPtr = new int[n + 1];
+		for (int k = 0; k < rowPtr[m]; k++) {
+			tPtr[colIdx[k] + 1]++;
+		}
+		for (int j = 0; j < n; j++) {
+			tPtr[j + 1] += tPtr[j];
+		}
+		int[] tIdx = new int[rowPtr[m]];
+		int[] next = Arrays.copyOf(tPtr, n);
+		for (int i = 0; i < m; i++) {
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				tIdx[next[colIdx[k]]++] = i;
+			}
+		}
+
+		int[] colors = new int[m];
+		Arrays.fill(colors, -1);
+		int[] mark = new int[1];
+		Arrays.fill(mark, -1);
+		for (int i = 0; i < m; i++) {
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				mark = markColor(mark, colors[colIdx[k]], i);
+			}
+			for (int k = tPtr[i]; k < tPtr[i + 1]; k++) {
+				mark = markColor(mark, colors[tIdx[k]], i);
+			}
+			int c = 0;
+			while (c < mark.length && mark[c] == i) {
+				c++;
+			}
+			colors[i] = c;
+		}
+		return colors;
+	}
+
+	/**
+	 * Group rows by color.
+	 * @param colors Color of every row, numbered from 0.
+	 * @return       classes[c] lists the rows of color c in increasing order.
+	 */
+	public static int[][] colorClasses(int[] colors) {
+		int count = 0;
+		for (int c : colors) {
+			if (c < 0) {
+				throw new IllegalArgumentException("Colors must not be negative");
+			}
+			count = Math.max(count, c + 1);
+		}
+		int[] sizes = new int[count];
+		for (int c : colors) {
+			sizes[c]++;
+		}
+		int[][] classes = new int[count][];
+		for (int c = 0; c < count; c++) {
+			classes[c] = new int[sizes[c]];
+			sizes[c] = 0;
+		}
+		for (int i = 0; i < colors.length; i++) {
+			int c = colors[i];
+			classes[c][sizes[c]++] = i;
+		}
+		return classes;
+	}
+
+	/**
+	 * One multicolor SOR sweep in place. Colors are visited in turn and the
+	 * rows of one color, which do not depend on each other, are updated
+	 * together, split across the pool when there are enough of them.
+	 * @param b       Right hand side
+	 * @param invDiag Reciprocals of the diagonal entries
+	 * @param x       Current iterate, overwritten with the next one
+	 * @param omega   Relaxation factor, 0 &lt; omega &lt; 2; 1 is Gauss-Seidel
+	 * @param classes Rows of each color, from {@link #colorClasses}
+	 * @param forward true to visit colors first to last, false for last to first
+	 * @param pool    Pool to run on, or null to stay on the calling thread
+	 * @return        Largest change in any entry
+	 */
+	public double multicolorSweep(double[] b, double[] invDiag, double[] x, double omega,
+			int[][] classes, boolean forward, ForkJoinPool pool) {
+		return multicolorSweep(b, invDiag, x, omega, classes, forward, pool, null);
+	}
+
+	/**
+	 * One multicolor SOR sweep that also reports the row residuals it
+	 * computed on the way, as sorSweep does. Each is taken just before its
+	 * row is updated, when the earlier colors already hold new values.
+	 * @param b           Right hand side
+	 * @param invDiag     Reciprocals of the diagonal entries
+	 * @param x           Current iterate, overwritten with the next one
+	 * @param omega       Relaxation factor, 0 &lt; omega &lt; 2; 1 is Gauss-Seidel
+	 * @param classes     Rows of each color, from {@link #colorClasses}
+	 * @param forward     true to visit colors first to last, false for last to first
+	 * @param pool        Pool to run on, or null to stay on the calling thread
+	 * @param residualOut If not null, residualOut[0] is set to the sum of squared row residuals
+	 * @return            Largest change in any entry
+	 */
+	public double multicolorSweep(double[] b, double[] invDiag, double[] x, double omega,
+			int[][] classes, boolean forward, ForkJoinPool pool, double[] residualOut) {
+		double step = 0;
+		double rr = 0;
+		double[] colorResidual = new double[1];
+		for (int t = 0; t < classes.length; t++) {
+			int[] rows = classes[forward ? t : classes.length - 1 - t];
+			double colorStep;
+			if (pool == null || rows.length <= COLOR_CHUNK) {
+				colorStep = relaxRows(b, invDiag, x, omega, rows, 0, rows.length, colorResidual);
+			} else {
+				ColorTask task = new ColorTask(b, invDiag, x, omega, rows, 0, rows.length);
+				colorStep = pool.invoke(task);
+				colorResidual[0] = task.residual[0];
+			}
+			step = Math.max(step, colorStep);
+			rr += colorResidual[0];
+		}
+		if (residualOut != null) {
+			residualOut[0] = rr;
+		}
+		return step;
+	}
+
+	/* ------------------------
+	   Private Methods
+	 * ------------------------ */
+
+	private double sorSweep(double[] b, double[] invDiag, double[] x, double omega,
+			int first, int end, int dir, double[] residualOut) {
+		double step = 0;
+		double rr = 0;
+		for (int i = first; i != end; i += dir) {
+			double r = b[i];
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				r -= values[k] * x[colIdx[k]];
+			}
+			rr += r * r;
+			double delta = omega * r * invDiag[i];
+			x[i] += delta;
+			step = Math.max(step, Math.abs(delta));
+		}
+		if (residualOut != null) {
+			residualOut[0] = rr;
+		}
+		return step;
+	}
+
+	/** SOR update of rows[from..to-1], which must not couple to each other;
+	 * residualOut[0] is set to the sum of their squared residuals. */
+	private double relaxRows(double[] b, double[] invDiag, double[] x, double omega,
+			int[] rows, int from, int to, double[] residualOut) {
+		double step = 0;
+		double rr = 0;
+		for (int t = from; t < to; t++) {
+			int i = rows[t];
+			double r = b[i];
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+				r -= values[k] * x[colIdx[k]];
+			}
+			rr += r * r;
+			double delta = omega * r * invDiag[i];
+			x[i] += delta;
+			step = Math.max(step, Math.abs(delta));
+		}
+		residualOut[0] = rr;
+		return step;
+	}
+
+	/**
+	 * Splits the rows of one color in half until a chunk is small enough to
+	 * relax directly. The task returns the largest change and leaves the
+	 * sum of squared row residuals of its chunk in residual[0].
+	 */
+	private final class ColorTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1;
+		private final double[] b, invDiag, x;
+		private final double omega;
+		private final int[] rows;
+		private final int from, to;
+		private final double[] residual = new double[1];
+
+		ColorTask(double[] b, double[] invDiag, double[] x, double omega, int[] rows, int from, int to) {
+			this.b = b;
+			this.invDiag = invDiag;
+			this.x = x;
+			this.omega = omega;
+			this.rows = rows;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Double compute() {
+			if (to - from <= COLOR_CHUNK) {
+				return relaxRows(b, invDiag, x, omega, rows, from, to, residual);
+			}
+			int mid = (from + to) >>> 1;
+			ColorTask left = new ColorTask(b, invDiag, x, omega, rows, from, mid);
+			left.fork();
+			ColorTask right = new ColorTask(b, invDiag, x, omega, rows, mid, to);
+			double rightStep = right.compute();
+			double leftStep = left.join();
+			residual[0] = left.residual[0] + right.residual[0];
+			return Math.max(leftStep, rightStep);
+		}
+	}
+
+	/** Record that color c is used next to row i, growing the mark array if needed. */
+	private static int[] markColor(int[] mark, int c, int i) {
+		if (c < 0) {
+			return mark;
+		}
+		if (c >= mark.length) {
+			int old = mark.length;
+			mark = Arrays.copyOf(mark, Math.max(c + 1, old * 2));
+			Arrays.fill(mark, old, mark.length, -1);
+		}
+		mark[c] = i;
+		return mark;
+	}
+
+	/** Insertion sort of one row's entries by column; rows are short. */
+	private static void sortRow(int[] ci, double[] cv, int start, int end) {
+		for (int k = start + 1; k < end; k++) {
+			int c = ci[k];
+			double v = cv[k];
+			int p = k - 1;
+			while (p >= start && ci[p] > c) {
+				ci[p + 1] = ci[p];
+				cv[p + 1] = cv[p];
+				p--;
+			}
+			ci[p + 1] = c;
+			cv[p + 1] = v;
+		}
+	}
+
+	private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,24 @@
+/**
+ * Test used by the stationary iterations (Jacobi, Gauss-Seidel) to decide
+ * that x(k) is close enough to the solution.
+ */
+public enum StoppingCriterion {
+    /**
+     * | ||x(k+1)|| - ||x(k)|| | &lt; tolerance. The original test; vectors of
+     * equal length pass even when they differ, so it can stop too early.
+     */
+    NORM_DIFFERENCE,
+
+    /**
+     * ||x(k+1) - x(k)||_inf &lt; tolerance. Read off the sweep at no extra cost.
+     */
+    STEP_DIFFERENCE,
+
+    /**
+     * ||b - A x(k)|| / ||b|| &lt; tolerance. Measures the error in the equations
+     * themselves. Jacobi gets the residual free from its sweep; Gauss-Seidel
+     * uses the residual estimate from its sweep and confirms with one exact
+     * residual only once the estimate passes.
+     */
+    RELATIVE_RESIDUAL
+}
@@ -7,24 +7,31 @@ public class lu_fact {
             Matrix matrix = input.readMatrix();
             System.out.println();
 
-            //MathOperations.LU(matrix);
+            LUDecomposition results = MathOperations.LU(matrix);
+            Matrix L = results.getL();
+            Matrix U = results.getU();
+            Matrix P = results.getP();
+            Matrix LU = L.multiply(U);
 
-//            System.out.println(results);
-//
-//            System.out.println("LU: \n");
-//            System.out.println(results[2]);
-//
-//            System.out.println("L: \n");
-//            System.out.println(results[0]);
-//
-//            System.out.println("U: \n");
-//            System.out.println(results[1]);
+            System.out.println("LU: \n");
+            System.out.println(LU);
 
-//            System.out.print("Error: ");
-//            System.out.println(MathOperations.QRError(LU, matrix));
+            System.out.println("L: \n");
+            System.out.println(L);
+
+            System.out.println("U: \n");
+            System.out.println(U);
+
+            System.out.println("P: \n");
+            System.out.println(P);
+
+            System.out.print("Error: ");
+            System.out.println(MathOperations.QRError(LU, P.multiply(matrix)));
 
         } catch (InputMismatchException e) {
             System.out.println(e.getMessage());
+        } catch (IllegalArgumentException ae) {
+            System.out.println(ae.getMessage());
         } catch (IndexOutOfBoundsException me) {
             System.out.println(me.getMessage());
         }
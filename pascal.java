@@ -10,27 +10,17 @@ public class pascal {
             System.out.println("b:");
             System.out.println(b);
 
-            double[][] x = new double[n][1];
-
-            Matrix[] solvingLinearEquations = new Matrix[P.getRowDimension()];
-            for(int i = 0; i < P.getColumnDimension(); i++) {
-                solvingLinearEquations[i] = MathOperations.applyCramersRule(P, b, i);
-            }
+            Matrix x = MathOperations.solveLU(P, b);
             System.out.println("x: \n");
-            for (int i = 0; i < solvingLinearEquations.length; i++) {
-                double calcDeter = solvingLinearEquations[i].determinant();
-                double finalAnswer = calcDeter / P.determinant();
-                System.out.println(finalAnswer);
-                x[i][0] = finalAnswer;
+            for (int i = 0; i < x.getRowDimension(); i++) {
+                System.out.println(x.get(i, 0));
             }
 
             System.out.println("\nQR-P Error: ");
-            System.out.println(MathOperations.QRError(MathOperations.confirmQRgivens(P), P));
-
+            System.out.println(MathOperations.QRgivens(P).getError());
 
-            //NOTE: Didn't have enough time to verify this; however the logic and code has been included.
-            System.out.println("\nPX-B Error: See code in pascal.java");
-            //System.out.println(MathOperations.PXError(P.multiply(new Matrix(x)), P));
+            System.out.println("\nPX-B Error: ");
+            System.out.println(MathOperations.PXError(P.multiply(x), b));
             System.out.println("------------------------------");
         }
 
@@ -6,9 +6,12 @@ import javafx.scene.chart.XYChart;
 import javafx.stage.Stage;
 import java.awt.Color;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class pascalplot extends Application {
 
+    private static final SplittableRandom numGenerator = new SplittableRandom();
+
     @Override
     public void start(Stage stage) {
 
@@ -25,28 +28,43 @@ public class pascalplot extends Application {
 
         final double TOLERANCE = 0.00005;
         final int ITERATIONS = 100;
-        double[][] approx2by2 = {{1},{1}};
+        final int COUNT = 1000;
         Map<Double, Integer> detToMatrixIterations = new HashMap<>();
         Map<Double, Double> detToTrace = new HashMap<>();
-        ArrayList<Double> traceList = new ArrayList<>(1000);
-        ArrayList<Double> detList = new ArrayList<>(1000);
-        ArrayList<Integer> iterationsList = new ArrayList<>(1000);
-        ArrayList<Integer> invIterationsList = new ArrayList<>(1000);
-        Matrix startingApproxMatrix = new Matrix(approx2by2);
-
-        for (int i = 0; i < 1000; i++) {
-            Matrix current = create2by2Matrix();
-            Matrix invMatrix = current.inverse2by2();
-            power_method powMethod = new power_method(current, startingApproxMatrix, TOLERANCE, ITERATIONS);
-            iterationsList.add(powMethod.iterationsCount);
-            double det = 1 / ((current.get(0, 0) * current.get(1, 1)) - (current.get(0, 1) * current.get(1, 0)));
-            detToMatrixIterations.put(det, powMethod.iterationsCount);
-            powMethod = new power_method(invMatrix, startingApproxMatrix, TOLERANCE, ITERATIONS);
-            invIterationsList.add(powMethod.iterationsCount);
+        ArrayList<Double> traceList = new ArrayList<>(COUNT);
+        ArrayList<Double> detList = new ArrayList<>(COUNT);
+        ArrayList<Integer> iterationsList = new ArrayList<>(COUNT);
+        ArrayList<Integer> invIterationsList = new ArrayList<>(COUNT);
+
+        //all matrices, their inverses and both power method runs are
+        //computed together in primitive arrays, starting from (1, 1)
+        Batch2x2 matrices = new Batch2x2(COUNT);
+        matrices.setParallelPool(ForkJoinPool.commonPool());
+        matrices.fillRandom(numGenerator.split(), -2, 2);
+        Batch2x2 inverses = new Batch2x2(COUNT);
+        inverses.setParallelPool(ForkJoinPool.commonPool());
+        matrices.inverse(inverses);
+
+        double[] traces = new double[COUNT];
+        double[] dets = new double[COUNT];
+        double[] eigenvalues = new double[COUNT];
+        double[] invEigenvalues = new double[COUNT];
+        int[] iterations = new int[COUNT];
+        int[] invIterations = new int[COUNT];
+        matrices.trace(traces);
+        matrices.det(dets);
+        matrices.powerMethod(1, 1, TOLERANCE, ITERATIONS, eigenvalues, iterations);
+        inverses.powerMethod(1, 1, TOLERANCE, ITERATIONS, invEigenvalues, invIterations);
+
+        for (int i = 0; i < COUNT; i++) {
+            double det = 1 / dets[i];
+            iterationsList.add(iterations[i]);
+            detToMatrixIterations.put(det, iterations[i]);
+            invIterationsList.add(invIterations[i]);
 
             detList.add(det);
-            traceList.add(current.trace());
-            detToTrace.put(det, current.trace());
+            traceList.add(traces[i]);
+            detToTrace.put(det, traces[i]);
 
         }
         Collections.sort(detList);
@@ -132,11 +150,10 @@ public class pascalplot extends Application {
     }
 
     public static Matrix create2by2Matrix() {
-        Random numGenerator = new Random();
         double[][] matrix = {{0, 0}, {0, 0}};
         for (int i = 0; i < 2; i++) {
             for (int j = 0; j < 2; j++) {
-                matrix[i][j] = (numGenerator.nextFloat() * 4) - 2;
+                matrix[i][j] = numGenerator.nextDouble(-2, 2);
             }
         }
         Matrix ret = new Matrix(matrix);
@@ -0,0 +1,210 @@
+/**
+ * Power method for the dominant eigenvalue and eigenvector of a square matrix.
+ * Each iteration multiplies the current unit vector by the matrix and takes
+ * the Rayleigh quotient x^T A x as the eigenvalue estimate, which for a
+ * symmetric matrix converges twice as fast as the ratio of successive norms.
+ * The loop works in two preallocated buffers and allocates nothing.
+ *
+ * The same loop runs inverse iteration, x = (A - shift I)^-1 x, for the
+ * eigenvalue closest to a shift, with A - shift I factored once by
+ * LUDecomposition and only substitutions done per iteration, and deflation,
+ * which removes eigenpairs already found so the next largest one appears.
+ */
+public class power_method {
+    public int iterationsCount;
+    public double eigenvalue;
+    public final double[] eigenvector;
+    public boolean converged;
+
+    private final Matrix a;
+    private final LUDecomposition lu;
+    private final double shift;
+    private final double[][] deflatedVectors;
+
+    /**
+     * Run the power method for the dominant eigenvalue of a
+     * @param a square matrix
+     * @param start n x 1 matrix holding the initial guess, must not be zero
+     * @param tolerance iteration stops when the eigenvalue estimate changes by no more than this
+     * @param maxIter largest number of iterations performed
+     */
+    public power_method(Matrix a, Matrix start, double tolerance, int maxIter) {
+        this(a, null, 0, new double[0][], start.getColumnVector(0), tolerance, maxIter);
+    }
+
+    private power_method(Matrix a, LUDecomposition lu, double shift,
+            double[][] deflatedVectors, double[] start, double tolerance, int maxIter) {
+        int n = lu == null ? a.getRowDimension() : start.length;
+        if (a != null && a.getColumnDimension() != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        if (start.length != n) {
+            throw new IllegalArgumentException("Matrix and vector must be same length");
+        }
+        this.a = a;
+        this.lu = lu;
+        this.shift = shift;
+        this.deflatedVectors = deflatedVectors;
+        this.eigenvector = new double[n];
+        iterate(start, tolerance, maxIter);
+    }
+
+    /**
+     * Inverse iteration for the eigenvalue of a smallest in magnitude
+     * @param a square nonsingular matrix
+     * @param start n x 1 matrix holding the initial guess
+     * @param tolerance iteration stops when the eigenvalue estimate changes by no more than this
+     * @param maxIter largest number of iterations performed
+     * @return the converged (or last) eigenpair of a
+     */
+    public static power_method inverse(Matrix a, Matrix start, double tolerance, int maxIter) {
+        return shiftedInverse(a, 0, start, tolerance, maxIter);
+    }
+
+    /**
+     * Shifted inverse iteration for the eigenvalue of a closest to shift.
+     * A - shift I is factored once and every iteration is a pair of
+     * triangular solves.
+     * @param a square matrix
+     * @param shift target; should not be an eigenvalue itself
+     * @param start n x 1 matrix holding the initial guess
+     * @param tolerance iteration stops when the eigenvalue estimate changes by no more than this
+     * @param maxIter largest number of iterations performed
+     * @return the converged (or last) eigenpair of a
+     */
+    public static power_method shiftedInverse(Matrix a, double shift, Matrix start, double tolerance, int maxIter) {
+        Matrix shifted = a.copy();
+        double[][] s = shifted.getArray();
+        for (int i = 0; i < s.length; i++) {
+            s[i][i] -= shift;
+        }
+        return shiftedInverse(new LUDecomposition(shifted, true), shift, start, tolerance, maxIter);
+    }
+
+    /**
+     * Shifted inverse iteration on an existing factorization of A - shift I,
+     * so that many starts or tolerances can share one LU decomposition
+     * @param lu factorization of A - shift I
+     * @param shift the shift that was subtracted before factoring
+     * @param start n x 1 matrix holding the initial guess
+     * @param tolerance iteration stops when the eigenvalue estimate changes by no more than this
+     * @param maxIter largest number of iterations performed
+     * @return the converged (or last) eigenpair of A
+     */
+    public static power_method shiftedInverse(LUDecomposition lu, double shift, Matrix start,
+            double tolerance, int maxIter) {
+        return new power_method(null, lu, shift, new double[0][],
+                start.getColumnVector(0), tolerance, maxIter);
+    }
+
+    /**
+     * The k eigenpairs of largest magnitude by the power method with
+     * deflation: once a pair (l, v) is found, later runs keep their iterate
+     * orthogonal to v, which for a symmetric matrix iterates with A restricted
+     * to the complement of the pairs found and so gives the same result as
+     * A - l v v^T, with less rounding drift back toward v.
+     * @param a square, preferably symmetric, matrix
+     * @param k number of eigenpairs wanted
+     * @param start n x 1 matrix holding the initial guess for every run
+     * @param tolerance iteration stops when the eigenvalue estimate changes by no more than this
+     * @param maxIter largest number of iterations performed per eigenpair
+     * @return the eigenpairs, largest in magnitude first
+     */
+    public static power_method[] dominant(Matrix a, int k, Matrix start, double tolerance, int maxIter) {
+        if (k < 0 || k > a.getRowDimension()) {
+            throw new IllegalArgumentException("Number of eigenpairs must be between 0 and n.");
+        }
+        double[] x0 = start.getColumnVector(0);
+        power_method[] pairs = new power_method[k];
+        double[][] vectors = new double[k][];
+        for (int j = 0; j < k; j++) {
+            pairs[j] = new power_method(a, null, 0, java.util.Arrays.copyOf(vectors, j),
+                    x0, tolerance, maxIter);
+            vectors[j] = pairs[j].eigenvector;
+        }
+        return pairs;
+    }
+
+    private void iterate(double[] start, double tolerance, int maxIter) {
+        int n = eigenvector.length;
+        double[] x = eigenvector;
+        double[] y = new double[n];
+        System.arraycopy(start, 0, x, 0, n);
+        deflate(x);
+        double norm = Matrix.norm(x);
+        if (norm == 0) {
+            throw new IllegalArgumentException("Starting vector must not be zero.");
+        }
+        scale(x, 1 / norm);
+
+        double previous = Double.NaN;
+        iterationsCount = 0;
+        converged = false;
+        while (iterationsCount < maxIter) {
+            //y = B x, where B is A, (A - shift I)^-1 or A with found pairs deflated
+            if (lu != null) {
+                lu.solve(x, y);
+            } else {
+                a.apply(x, y);
+            }
+            deflate(y);
+            iterationsCount++;
+
+            //Rayleigh quotient of B at the unit vector x
+            double rayleigh = 0;
+            for (int i = 0; i < n; i++) {
+                rayleigh += x[i] * y[i];
+            }
+            eigenvalue = lu != null ? shift + 1 / rayleigh : rayleigh;
+
+            norm = Matrix.norm(y);
+            if (norm == 0) {
+                //x is in the null space: eigenvalue 0 with eigenvector x
+                eigenvalue = lu != null ? shift : 0;
+                converged = true;
+                break;
+            }
+            //||B x - rayleigh x||, relative to ||B x||; a steady estimate only
+            //counts if x is also close to an eigenvector, which rules out
+            //complex pairs where the quotient can stall while x keeps turning
+            double residual = Math.sqrt(Math.max(0, norm * norm - rayleigh * rayleigh)) / norm;
+
+            //keep the sign steady when the eigenvalue is negative
+            scale(y, (rayleigh < 0 ? -1 : 1) / norm);
+            System.arraycopy(y, 0, x, 0, n);
+
+            if (Math.abs(eigenvalue - previous) <= tolerance && residual <= Math.sqrt(tolerance)) {
+                converged = true;
+                break;
+            }
+            previous = eigenvalue;
+        }
+    }
+
+    /** Project out the components along the eigenvectors already found. */
+    private void deflate(double[] y) {
+        for (int j = 0; j < deflatedVectors.length; j++) {
+            double[] v = deflatedVectors[j];
+            double dot = 0;
+            for (int i = 0; i < v.length; i++) {
+                dot += v[i] * y[i];
+            }
+            for (int i = 0; i < v.length; i++) {
+                y[i] -= dot * v[i];
+            }
+        }
+    }
+
+    private static void scale(double[] x, double s) {
+        for (int i = 0; i < x.length; i++) {
+            x[i] *= s;
+        }
+    }
+
+    /**
+     * @return the eigenvector as an n x 1 matrix
+     */
+    public Matrix getEigenvector() {
+        return new Matrix(eigenvector.clone(), eigenvector.length);
+    }
+}
@@ -18,28 +18,23 @@ public class solve_qr_b {
         }
 
         //Now let's solve the equation.
-        System.out.println("Please enter a nx1 matrix (b) for us to solve\n "
+        System.out.println("Please enter a nxk matrix (b), one right hand side per column, for us to solve\n "
                 + " the factorization (where Ax = b)"
                 + " \n");
         try {
             Matrix matrix = input.readMatrix();
             System.out.println();
             b = matrix;
-            Matrix[] solvingLinearEquations = new Matrix[matrix.getRowDimension()];
-            for(int i = 0; i < A.getColumnDimension(); i++) {
-                solvingLinearEquations[i] = MathOperations.applyCramersRule(A, b, i);
-            }
+            Matrix x = MathOperations.solveQR(A, b);
 
             System.out.println("x: \n");
-            for (int i = 0; i < solvingLinearEquations.length; i++) {
-                double calcDeter = solvingLinearEquations[i].determinant();
-                double finalAnswer = calcDeter / A.determinant();
-                System.out.println(finalAnswer);
-            }
+            System.out.println(x);
         } catch (InputMismatchException e) {
             System.out.println(e.getMessage());
         } catch (IndexOutOfBoundsException me) {
             System.out.println(me.getMessage());
+        } catch (RuntimeException se) {
+            System.out.println(se.getMessage());
         }
 
     }